@@ -0,0 +1,196 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.benchmark;
+
+import io.github.pellse.assembler.Assembler;
+import io.github.pellse.assembler.LifeCycleEventBroadcaster;
+import io.github.pellse.assembler.util.BillingInfo;
+import io.github.pellse.assembler.util.Customer;
+import io.github.pellse.assembler.util.OrderItem;
+import io.github.pellse.assembler.util.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.LongStream;
+
+import static io.github.pellse.assembler.AssemblerBuilder.assemblerOf;
+import static io.github.pellse.assembler.LifeCycleEventBroadcaster.lifeCycleEventBroadcaster;
+import static io.github.pellse.assembler.Rule.rule;
+import static io.github.pellse.assembler.RuleMapper.oneToMany;
+import static io.github.pellse.assembler.RuleMapper.oneToOne;
+import static io.github.pellse.assembler.caching.CacheFactory.cached;
+import static io.github.pellse.assembler.caching.CacheFactory.cachedMany;
+import static io.github.pellse.assembler.caching.ConcurrentCacheFactory.concurrent;
+import static io.github.pellse.assembler.caching.StreamTableFactoryBuilder.streamTableBuilder;
+import static java.time.Duration.ofMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toMap;
+import static reactor.core.publisher.Flux.fromIterable;
+import static reactor.core.scheduler.Schedulers.immediate;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(MILLISECONDS)
+public class AssemblerBenchmark {
+
+    private static final int ORDER_ITEMS_PER_CUSTOMER = 3;
+
+    @Param({"10", "1000", "100000"})
+    int entityCount;
+
+    private List<Customer> customers;
+    private Map<Long, BillingInfo> billingInfos;
+    private Map<Long, List<OrderItem>> orderItems;
+
+    private LifeCycleEventBroadcaster lifeCycleEventBroadcaster;
+
+    private Assembler<Customer, Transaction> oneToOneAssembler;
+    private Assembler<Customer, Transaction> oneToManyAssembler;
+    private Assembler<Customer, Transaction> cachedAssembler;
+    private Assembler<Customer, Transaction> cachedConcurrentAssembler;
+    private Assembler<Customer, Transaction> cachedManyAssembler;
+    private Assembler<Customer, Transaction> streamTableAssembler;
+
+    @Setup
+    public void setup() {
+
+        customers = LongStream.rangeClosed(1, entityCount)
+                .mapToObj(id -> new Customer(id, "Customer " + id))
+                .toList();
+
+        billingInfos = customers.stream()
+                .map(customer -> new BillingInfo((int) (long) customer.customerId(), customer.customerId(), "4540977822220971"))
+                .collect(toMap(BillingInfo::customerId, identity()));
+
+        orderItems = customers.stream()
+                .flatMap(customer -> LongStream.range(0, ORDER_ITEMS_PER_CUSTOMER)
+                        .mapToObj(i -> new OrderItem(customer.customerId() + "-" + i, customer.customerId(), "Item " + i, 9.99)))
+                .collect(groupingBy(OrderItem::customerId));
+
+        lifeCycleEventBroadcaster = lifeCycleEventBroadcaster();
+
+        oneToOneAssembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(this::getBillingInfo)),
+                        (customer, billingInfo) -> new Transaction(customer, billingInfo, null))
+                .build(immediate());
+
+        oneToManyAssembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, this::getAllOrders)),
+                        (customer, orderItems) -> new Transaction(customer, null, orderItems))
+                .build(immediate());
+
+        cachedAssembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(this::getBillingInfo))),
+                        (customer, billingInfo) -> new Transaction(customer, billingInfo, null))
+                .build(immediate());
+
+        cachedConcurrentAssembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(this::getBillingInfo, concurrent()))),
+                        (customer, billingInfo) -> new Transaction(customer, billingInfo, null))
+                .build(immediate());
+
+        cachedManyAssembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(this::getAllOrders))),
+                        (customer, orderItems) -> new Transaction(customer, null, orderItems))
+                .build(immediate());
+
+        streamTableAssembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(this::getBillingInfo, streamTableBuilder(billingInfoUpdates())
+                                .maxWindowSizeAndTime(100, ofMillis(10))
+                                .lifeCycleEventSource(lifeCycleEventBroadcaster)
+                                .build()))),
+                        (customer, billingInfo) -> new Transaction(customer, billingInfo, null))
+                .build(immediate());
+
+        lifeCycleEventBroadcaster.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        lifeCycleEventBroadcaster.stop();
+    }
+
+    @Benchmark
+    public void assembleOneToOne(Blackhole blackhole) {
+        assemble(oneToOneAssembler, blackhole);
+    }
+
+    @Benchmark
+    public void assembleOneToMany(Blackhole blackhole) {
+        assemble(oneToManyAssembler, blackhole);
+    }
+
+    @Benchmark
+    public void assembleCached(Blackhole blackhole) {
+        assemble(cachedAssembler, blackhole);
+    }
+
+    @Benchmark
+    public void assembleCachedConcurrent(Blackhole blackhole) {
+        assemble(cachedConcurrentAssembler, blackhole);
+    }
+
+    @Benchmark
+    public void assembleCachedMany(Blackhole blackhole) {
+        assemble(cachedManyAssembler, blackhole);
+    }
+
+    @Benchmark
+    public void assembleStreamTable(Blackhole blackhole) {
+        assemble(streamTableAssembler, blackhole);
+    }
+
+    private void assemble(Assembler<Customer, Transaction> assembler, Blackhole blackhole) {
+        assembler.assemble(customers)
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    private Flux<BillingInfo> getBillingInfo(List<Customer> customers) {
+        return fromIterable(customers)
+                .mapNotNull(customer -> billingInfos.get(customer.customerId()));
+    }
+
+    private Flux<OrderItem> getAllOrders(List<Customer> customers) {
+        return fromIterable(customers)
+                .flatMapIterable(customer -> orderItems.get(customer.customerId()));
+    }
+
+    private Flux<BillingInfo> billingInfoUpdates() {
+        return fromIterable(billingInfos.values())
+                .concatWith(Flux.interval(ofMillis(1))
+                        .map(__ -> billingInfos.get(ThreadLocalRandom.current().nextLong(1, entityCount + 1))));
+    }
+}
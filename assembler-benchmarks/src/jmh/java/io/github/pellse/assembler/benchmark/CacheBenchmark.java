@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.benchmark;
+
+import io.github.pellse.assembler.caching.Cache;
+import io.github.pellse.assembler.caching.CacheContext.OneToOneCacheContext;
+import io.github.pellse.assembler.caching.CacheFactory;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Sinks.Empty;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static io.github.pellse.util.collection.CollectionUtils.readAll;
+import static io.github.pellse.util.reactive.ReactiveUtils.resolve;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(MILLISECONDS)
+public class CacheBenchmark {
+
+    @Param({"10000"})
+    int entityCount;
+
+    private List<Long> ids;
+
+    private Cache<Long, String> cache;
+    private final Map<Long, Sinks.One<String>> legacyCache = new ConcurrentHashMap<>();
+
+    @Setup
+    public void setup() {
+
+        ids = LongStream.range(0, entityCount)
+                .boxed()
+                .toList();
+
+        final Map<Long, String> values = ids.stream().collect(toMap(identity(), String::valueOf));
+
+        cache = CacheFactory.<Long, String, String, OneToOneCacheContext<Long, String>>cache().create(null);
+        cache.putAll(values).block();
+
+        values.forEach((id, value) -> legacyCache.put(id, Sinks.one()));
+        legacyCache.forEach((id, sink) -> sink.tryEmitValue(values.get(id)));
+    }
+
+    @Benchmark
+    public Map<Long, String> getAll() {
+        return cache.getAll(ids).block();
+    }
+
+    // Read path of the Sinks.One based default cache, kept here as the baseline
+    @Benchmark
+    public Map<Long, String> legacyGetAll() {
+        return getAll(legacyCache, ids).block();
+    }
+
+    private static Mono<Map<Long, String>> getAll(Map<Long, Sinks.One<String>> delegateMap, List<Long> ids) {
+        return resolve(readAll(ids, delegateMap, Empty::asMono));
+    }
+}
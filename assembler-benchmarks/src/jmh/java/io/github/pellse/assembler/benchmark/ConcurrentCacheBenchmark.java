@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.benchmark;
+
+import io.github.pellse.assembler.caching.Cache;
+import io.github.pellse.assembler.caching.CacheContext.OneToOneCacheContext;
+import io.github.pellse.assembler.caching.CacheFactory;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static io.github.pellse.assembler.caching.ConcurrentCache.ConcurrencyConfig.concurrencyConfig;
+import static io.github.pellse.assembler.caching.ConcurrentCache.concurrentCache;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(MICROSECONDS)
+public class ConcurrentCacheBenchmark {
+
+    @Param({"100"})
+    int entityCount;
+
+    private List<Long> ids;
+
+    private Cache<Long, String> cache;
+    private Cache<Long, String> lockingCache;
+    private Cache<Long, String> optimisticCache;
+    private Cache<Long, String> stripedOptimisticCache;
+
+    @Setup
+    public void setup() {
+
+        ids = LongStream.range(0, entityCount)
+                .boxed()
+                .toList();
+
+        final Map<Long, String> values = ids.stream().collect(toMap(identity(), String::valueOf));
+
+        cache = CacheFactory.<Long, String, String, OneToOneCacheContext<Long, String>>cache().create(null);
+        cache.putAll(values).block();
+
+        lockingCache = concurrentCache(cache);
+        optimisticCache = concurrentCache(cache, concurrencyConfig().withOptimisticReads());
+        stripedOptimisticCache = concurrentCache(cache, concurrencyConfig().withStripes(8).withOptimisticReads());
+    }
+
+    @Benchmark
+    public Map<Long, String> getAll() {
+        return cache.computeAll(ids, this::fetch).block();
+    }
+
+    @Benchmark
+    public Map<Long, String> lockingGetAll() {
+        return lockingCache.computeAll(ids, this::fetch).block();
+    }
+
+    @Benchmark
+    public Map<Long, String> optimisticGetAll() {
+        return optimisticCache.computeAll(ids, this::fetch).block();
+    }
+
+    @Benchmark
+    public Map<Long, String> stripedOptimisticGetAll() {
+        return stripedOptimisticCache.computeAll(ids, this::fetch).block();
+    }
+
+    private Mono<Map<Long, String>> fetch(Iterable<? extends Long> ids) {
+        return Flux.<Long>fromIterable(ids).collectMap(identity(), String::valueOf);
+    }
+}
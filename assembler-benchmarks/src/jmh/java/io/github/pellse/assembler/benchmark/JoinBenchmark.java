@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static io.github.pellse.assembler.AssemblerBuilder.joinMapperResults;
+import static io.github.pellse.util.collection.CollectionUtils.toStream;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(MILLISECONDS)
+public class JoinBenchmark {
+
+    @Param({"8"})
+    int ruleCount;
+
+    @Param({"50000"})
+    int entityCount;
+
+    private List<Long> topLevelEntities;
+    private List<Map<Long, ?>> mapperResults;
+
+    private BiFunction<Iterable<Long>, List<Map<Long, ?>>, Stream<Integer>> streamJoin;
+    private BiFunction<Iterable<Long>, List<Map<Long, ?>>, Stream<Integer>> indexedJoin;
+
+    @Setup
+    public void setup() {
+
+        topLevelEntities = LongStream.range(0, entityCount)
+                .boxed()
+                .toList();
+
+        mapperResults = IntStream.range(0, ruleCount)
+                .<Map<Long, ?>>mapToObj(__ -> topLevelEntities.stream().collect(toMap(identity(), String::valueOf)))
+                .toList();
+
+        final BiFunction<Long, Object[], Integer> aggregationFunction = (id, joinedResults) -> joinedResults.length;
+
+        streamJoin = streamJoin(identity(), aggregationFunction);
+        indexedJoin = joinMapperResults(identity(), aggregationFunction);
+    }
+
+    @Benchmark
+    public void streamJoin(Blackhole blackhole) {
+        streamJoin.apply(topLevelEntities, mapperResults).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void indexedJoin(Blackhole blackhole) {
+        indexedJoin.apply(topLevelEntities, mapperResults).forEach(blackhole::consume);
+    }
+
+    // Join implementation previously used by AssemblerBuilder, kept here as the baseline
+    private static <T, K, R> BiFunction<Iterable<T>, List<Map<K, ?>>, Stream<R>> streamJoin(
+            Function<T, K> correlationIdResolver,
+            BiFunction<T, Object[], R> aggregationFunction) {
+
+        final BiFunction<T, List<Map<K, ?>>, R> joinMapperResultsFunction =
+                (topLevelEntity, listOfMapperResults) -> aggregationFunction.apply(topLevelEntity,
+                        listOfMapperResults.stream()
+                                .map(mapperResult -> mapperResult.get(correlationIdResolver.apply(topLevelEntity)))
+                                .toArray());
+
+        return (topLevelEntities, mapperResults) -> toStream(topLevelEntities)
+                .filter(Objects::nonNull)
+                .map(topLevelEntity -> joinMapperResultsFunction.apply(topLevelEntity, mapperResults));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.benchmark;
+
+import io.github.pellse.assembler.MapFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static io.github.pellse.assembler.MapFactory.defaultMapFactory;
+import static io.github.pellse.assembler.MapFactory.longKeyMapFactory;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(MILLISECONDS)
+public class MapFactoryBenchmark {
+
+    @Param({"1000000"})
+    int entityCount;
+
+    private List<Long> ids;
+
+    @Setup
+    public void setup() {
+        ids = LongStream.range(0, entityCount)
+                .map(i -> i * 31)
+                .boxed()
+                .toList();
+    }
+
+    @Benchmark
+    public void defaultMapFactoryJoin(Blackhole blackhole) {
+        join(defaultMapFactory(), blackhole);
+    }
+
+    @Benchmark
+    public void longKeyMapFactoryJoin(Blackhole blackhole) {
+        join(longKeyMapFactory(), blackhole);
+    }
+
+    private void join(MapFactory<Long, Long> mapFactory, Blackhole blackhole) {
+        final Map<Long, Long> map = ids.stream().collect(toMap(identity(), identity(), (u1, u2) -> u2, () -> mapFactory.apply(entityCount)));
+        for (Long id : ids) {
+            blackhole.consume(map.get(id));
+        }
+    }
+}
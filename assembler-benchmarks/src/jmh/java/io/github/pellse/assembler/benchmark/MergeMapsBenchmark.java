@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pellse.assembler.benchmark;
+
+import io.github.pellse.util.collection.SortedArrayList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static io.github.pellse.util.collection.CollectionUtils.mergeMaps;
+import static io.github.pellse.util.collection.CollectionUtils.subtractFromMap;
+import static java.util.Comparator.comparing;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(MICROSECONDS)
+public class MergeMapsBenchmark {
+
+    record Child(int id, String value) {
+    }
+
+    private static final Comparator<Child> CHILD_COMPARATOR = comparing(Child::value);
+
+    @Param({"5000"})
+    int childCount;
+
+    private Map<Long, List<Child>> existingMap;
+    private Map<Long, List<Child>> existingSortedMap;
+    private Map<Long, List<Child>> newChildMap;
+    private Map<Long, List<Child>> updatedChildMap;
+
+    @Setup
+    public void setup() {
+        existingMap = Map.of(1L, IntStream.range(0, childCount).mapToObj(i -> new Child(i, "child " + i)).toList());
+        existingSortedMap = Map.of(1L, new SortedArrayList<>(CHILD_COMPARATOR, existingMap.get(1L)));
+        newChildMap = Map.of(1L, List.of(new Child(childCount, "new child")));
+        updatedChildMap = Map.of(1L, List.of(new Child(childCount / 2, "updated child")));
+    }
+
+    @Benchmark
+    public Map<Long, List<Child>> mergeNewChild() {
+        return mergeMaps(existingMap, newChildMap, Child::id);
+    }
+
+    @Benchmark
+    public Map<Long, List<Child>> mergeUpdatedChild() {
+        return mergeMaps(existingMap, updatedChildMap, Child::id);
+    }
+
+    @Benchmark
+    public List<Child> mergeNewChildThenSort() {
+        return mergeMaps(existingMap, newChildMap, Child::id).get(1L).stream()
+                .sorted(CHILD_COMPARATOR)
+                .toList();
+    }
+
+    @Benchmark
+    public Map<Long, List<Child>> mergeNewSortedChild() {
+        return mergeMaps(existingSortedMap, newChildMap, Child::id);
+    }
+
+    @Benchmark
+    public Map<Long, List<Child>> subtractChild() {
+        return subtractFromMap(updatedChildMap, existingMap, Child::id);
+    }
+
+    @Benchmark
+    public Map<Long, List<Child>> subtractMissingChild() {
+        return subtractFromMap(newChildMap, existingMap, Child::id);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static io.github.pellse.assembler.QueryUtils.fillResultMap;
+import static io.github.pellse.util.collection.CollectionUtils.toLinkedHashMap;
+import static io.github.pellse.util.collection.CollectionUtils.transform;
+import static java.util.Objects.requireNonNullElse;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.function.Function.identity;
+import static java.util.function.Predicate.not;
+import static java.util.stream.Collectors.toMap;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(MILLISECONDS)
+public class QueryUtilsBenchmark {
+
+    @Param({"100000"})
+    int entityCount;
+
+    @Param({"0.01", "0.5", "1.0"})
+    double matchRatio;
+
+    private List<Long> entities;
+    private List<Long> queryResults;
+
+    private final Function<Long, String> defaultResultProvider = id -> "default";
+
+    @Setup
+    public void setup() {
+
+        entities = LongStream.range(0, entityCount)
+                .boxed()
+                .toList();
+
+        queryResults = entities.stream()
+                .limit((long) (entityCount * matchRatio))
+                .toList();
+    }
+
+    @Benchmark
+    public void legacyResultMap(Blackhole blackhole) {
+        blackhole.consume(legacyToResultMap(entities, collect(), identity(), defaultResultProvider));
+    }
+
+    @Benchmark
+    public void inPlaceResultMap(Blackhole blackhole) {
+        blackhole.consume(fillResultMap(entities, collect(), identity(), defaultResultProvider));
+    }
+
+    private Map<Long, String> collect() {
+        return queryResults.stream().collect(toMap(identity(), id -> "value", (u1, u2) -> u2, () -> HashMap.newHashMap(entityCount)));
+    }
+
+    // Implementation previously used by QueryUtils, kept here as the baseline
+    private static <T, ID, RRC> Map<ID, RRC> legacyToResultMap(
+            Collection<T> entities,
+            Map<ID, RRC> map,
+            Function<T, ID> topLevelIdResolver,
+            Function<ID, RRC> defaultResultProvider) {
+
+        if (map.size() == entities.size()) {
+            return map;
+        }
+
+        final Collection<ID> ids = transform(entities, topLevelIdResolver);
+        final Function<ID, RRC> resultProvider = requireNonNullElse(defaultResultProvider, id -> null);
+
+        final Map<ID, RRC> resultLinkedHashMap = toLinkedHashMap(map);
+        final Set<ID> idsFromQueryResult = resultLinkedHashMap.keySet();
+        final Map<ID, RRC> resultMapCopy = new LinkedHashMap<>(resultLinkedHashMap);
+
+        ids.stream()
+                .filter(not(idsFromQueryResult::contains))
+                .forEach(id -> resultMapCopy.put(id, resultProvider.apply(id)));
+
+        return resultMapCopy;
+    }
+}
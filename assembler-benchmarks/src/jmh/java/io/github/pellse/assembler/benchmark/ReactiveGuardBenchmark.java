@@ -0,0 +1,43 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.benchmark;
+
+import io.github.pellse.concurrent.ReactiveGuard;
+import org.openjdk.jmh.annotations.*;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static reactor.core.publisher.Mono.just;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(MICROSECONDS)
+public class ReactiveGuardBenchmark {
+
+    private final ReactiveGuard reactiveGuard = ReactiveGuard.create();
+
+    @Benchmark
+    @Threads(4)
+    public Integer withReadLock() {
+        return reactiveGuard.withReadLock(just(1)).block();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer withLock() {
+        return reactiveGuard.withLock(just(1)).block();
+    }
+}
@@ -18,10 +18,12 @@ package io.github.pellse.assembler.caching.caffeine;
 
 import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.pellse.assembler.caching.Cache.MergeFunction;
 import io.github.pellse.assembler.caching.CacheContext;
 import io.github.pellse.assembler.caching.CacheFactory;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 import static com.github.benmanes.caffeine.cache.Caffeine.newBuilder;
 import static io.github.pellse.assembler.caching.Cache.adapterCache;
@@ -32,6 +34,7 @@ import static java.util.Map.of;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor;
 import static reactor.core.publisher.Mono.fromFuture;
+import static reactor.core.publisher.Mono.just;
 
 public interface CaffeineCacheFactory {
 
@@ -79,10 +82,23 @@ public interface CaffeineCacheFactory {
                 ids -> fromFuture(delegateCache.getAll(ids, keys -> of())),
                 (ids, fetchFunction) -> fromFuture(delegateCache.getAll(ids, (keys, executor) -> fetchFunction.apply(keys).toFuture())),
                 toMono(map -> map.forEach((id, results) -> delegateCache.put(id, completedFuture(results)))),
-                toMono(map -> also(delegateCache.asMap(), cache -> map.keySet().forEach(cache::remove)))
+                toMono(map -> also(delegateCache.asMap(), cache -> map.keySet().forEach(cache::remove))),
+                null,
+                (map, mergeFunction) -> just(also(map, m -> m.forEach((id, incomingValue) ->
+                        delegateCache.asMap().compute(id, (key, existingFuture) -> merge(id, existingFuture, incomingValue, mergeFunction)))))
         );
     }
 
+    private static <ID, RRC> CompletableFuture<RRC> merge(ID id, CompletableFuture<RRC> existingFuture, RRC incomingValue, MergeFunction<ID, RRC> mergeFunction) {
+        if (existingFuture == null || existingFuture.isDone()) {
+            final var existingValue = existingFuture == null || existingFuture.isCompletedExceptionally() ? null : existingFuture.join();
+            final var mergedValue = mergeFunction.merge(id, existingValue, incomingValue);
+            return mergedValue != null ? completedFuture(mergedValue) : null;
+        }
+        // Load still in flight, merge with the loaded value instead of blocking or overwriting it
+        return existingFuture.handle((existingValue, e) -> mergeFunction.merge(id, e == null ? existingValue : null, incomingValue));
+    }
+
     private static Caffeine<Object, Object> defaultBuilder(boolean useVirtualThreads) {
         return then(newBuilder(), builder -> useVirtualThreads ? builder.executor(newVirtualThreadPerTaskExecutor()) : builder);
     }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pellse.assembler;
+
+import java.time.Duration;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+
+/**
+ * Not thread safe, only meant to be called serially from the windowing operator of a single subscription.
+ */
+final class AdaptiveWindowSize {
+
+    private static final double ALPHA = 0.2;
+
+    private final int minWindowSize;
+    private final int maxWindowSize;
+    private final long targetLatencyNanos;
+
+    private long lastEventTime;
+    private double averageInterval = -1;
+    private int windowSize;
+    private int eventCount;
+
+    private AdaptiveWindowSize(int minWindowSize, int maxWindowSize, Duration targetLatency) {
+        this.minWindowSize = minWindowSize;
+        this.maxWindowSize = maxWindowSize;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.windowSize = minWindowSize;
+    }
+
+    static AdaptiveWindowSize adaptiveWindowSize(int minWindowSize, int maxWindowSize, Duration targetLatency) {
+        return new AdaptiveWindowSize(minWindowSize, maxWindowSize, targetLatency);
+    }
+
+    void startWindow() {
+        eventCount = 0;
+    }
+
+    boolean isLastEventOfWindow() {
+        onEvent();
+        if (++eventCount >= windowSize) {
+            eventCount = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private void onEvent() {
+        final long now = nanoTime();
+        if (averageInterval < 0) {
+            averageInterval = targetLatencyNanos;
+        } else {
+            averageInterval = ALPHA * (now - lastEventTime) + (1 - ALPHA) * averageInterval;
+        }
+        lastEventTime = now;
+
+        // Number of events expected to arrive within the target latency at the current rate
+        final double expectedEvents = targetLatencyNanos / max(averageInterval, 1);
+        windowSize = (int) max(minWindowSize, min(maxWindowSize, expectedEvents));
+    }
+}
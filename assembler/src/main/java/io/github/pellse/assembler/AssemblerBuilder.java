@@ -16,6 +16,7 @@
 
 package io.github.pellse.assembler;
 
+import io.github.pellse.concurrent.ConcurrencyLimiter;
 import io.github.pellse.util.function.*;
 import org.reactivestreams.Publisher;
 import reactor.core.scheduler.Scheduler;
@@ -25,6 +26,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static io.github.pellse.assembler.FluxAdapter.fluxAdapter;
@@ -47,21 +49,40 @@ public interface AssemblerBuilder {
             final Function<Iterable<T>, Stream<Publisher<? extends Map<K, ?>>>> subQueryMapperBuilder = topLevelEntities -> queryFunctions.stream()
                     .map(queryFunction -> queryFunction.apply(topLevelEntities));
 
-            final BiFunction<T, List<Map<K, ?>>, R> joinMapperResultsFunction =
-                    (topLevelEntity, listOfMapperResults) -> aggregationFunction.apply(topLevelEntity,
-                            listOfMapperResults.stream()
-                                    .map(mapperResult -> mapperResult.get(correlationIdResolver.apply(topLevelEntity)))
-                                    .toArray());
-
-            final BiFunction<Iterable<T>, List<Map<K, ?>>, Stream<R>> aggregateStreamBuilder =
-                    (topLevelEntities, mapperResults) -> toStream(topLevelEntities)
-                            .filter(Objects::nonNull)
-                            .map(topLevelEntity -> joinMapperResultsFunction.apply(topLevelEntity, mapperResults));
+            final var aggregateStreamBuilder = joinMapperResults(correlationIdResolver, aggregationFunction);
 
             return topLevelEntitiesProvider -> assemblerAdapter.convertSubQueryMappers(topLevelEntitiesProvider, subQueryMapperBuilder, aggregateStreamBuilder);
         };
     }
 
+    static <T, K, R> BiFunction<Iterable<T>, List<Map<K, ?>>, Stream<R>> joinMapperResults(
+            Function<T, K> correlationIdResolver,
+            BiFunction<T, Object[], R> aggregationFunction) {
+
+        return (topLevelEntities, mapperResults) -> {
+
+            final Map<?, ?>[] mapperResultArray = mapperResults.toArray(Map[]::new);
+            final var nbMapperResults = mapperResultArray.length;
+
+            // Only reused for every top level entity when the aggregation function comes from a typed withRules() overload,
+            // which immediately unpacks the array (the aggregation function is applied eagerly on a sequential stream),
+            // an aggregation function passed to the raw withRules() overload may keep a reference to the array
+            final var sharedJoinedResults = aggregationFunction instanceof UnpackingAggregationFunction<T, R> ? new Object[nbMapperResults] : null;
+
+            return toStream(topLevelEntities)
+                    .filter(Objects::nonNull)
+                    .map(topLevelEntity -> {
+                        final var correlationId = correlationIdResolver.apply(topLevelEntity);
+                        final var joinedResults = sharedJoinedResults != null ? sharedJoinedResults : new Object[nbMapperResults];
+
+                        for (int i = 0; i < nbMapperResults; i++) {
+                            joinedResults[i] = mapperResultArray[i].get(correlationId);
+                        }
+                        return aggregationFunction.apply(topLevelEntity, joinedResults);
+                    });
+        };
+    }
+
     @FunctionalInterface
     interface WithCorrelationIdResolverBuilder<R> {
 
@@ -76,7 +97,7 @@ public interface AssemblerBuilder {
                 Rule<T, K, E1> rule,
                 BiFunction<T, E1, R> aggregationFunction) {
 
-            return withRules(List.of(rule), (t, s) -> aggregationFunction.apply(t, (E1) s[0]));
+            return withRules(List.of(rule), (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(t, (E1) s[0]));
         }
 
         @SuppressWarnings("unchecked")
@@ -85,7 +106,7 @@ public interface AssemblerBuilder {
                 Rule<T, K, E2> rule2,
                 Function3<T, E1, E2, R> aggregationFunction) {
 
-            return withRules(List.of(rule1, rule2), (t, s) -> aggregationFunction.apply(t, (E1) s[0], (E2) s[1]));
+            return withRules(List.of(rule1, rule2), (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(t, (E1) s[0], (E2) s[1]));
         }
 
         @SuppressWarnings("unchecked")
@@ -96,7 +117,7 @@ public interface AssemblerBuilder {
                 Function4<T, E1, E2, E3, R> aggregationFunction) {
 
             return withRules(List.of(rule1, rule2, rule3),
-                    (t, s) -> aggregationFunction.apply(t, (E1) s[0], (E2) s[1], (E3) s[2]));
+                    (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(t, (E1) s[0], (E2) s[1], (E3) s[2]));
         }
 
         @SuppressWarnings("unchecked")
@@ -108,7 +129,7 @@ public interface AssemblerBuilder {
                 Function5<T, E1, E2, E3, E4, R> aggregationFunction) {
 
             return withRules(List.of(rule1, rule2, rule3, rule4),
-                    (t, s) -> aggregationFunction.apply(t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3]));
+                    (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3]));
         }
 
         @SuppressWarnings("unchecked")
@@ -121,7 +142,7 @@ public interface AssemblerBuilder {
                 Function6<T, E1, E2, E3, E4, E5, R> aggregationFunction) {
 
             return withRules(List.of(rule1, rule2, rule3, rule4, rule5),
-                    (t, s) -> aggregationFunction.apply(t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3], (E5) s[4]));
+                    (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3], (E5) s[4]));
         }
 
         @SuppressWarnings("unchecked")
@@ -135,7 +156,7 @@ public interface AssemblerBuilder {
                 Function7<T, E1, E2, E3, E4, E5, E6, R> aggregationFunction) {
 
             return withRules(List.of(rule1, rule2, rule3, rule4, rule5, rule6),
-                    (t, s) -> aggregationFunction.apply(t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3], (E5) s[4], (E6) s[5]));
+                    (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3], (E5) s[4], (E6) s[5]));
         }
 
         @SuppressWarnings("unchecked")
@@ -150,7 +171,7 @@ public interface AssemblerBuilder {
                 Function8<T, E1, E2, E3, E4, E5, E6, E7, R> aggregationFunction) {
 
             return withRules(List.of(rule1, rule2, rule3, rule4, rule5, rule6, rule7),
-                    (t, s) -> aggregationFunction.apply(
+                    (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(
                             t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3], (E5) s[4], (E6) s[5], (E7) s[6]));
         }
 
@@ -167,7 +188,7 @@ public interface AssemblerBuilder {
                 Function9<T, E1, E2, E3, E4, E5, E6, E7, E8, R> aggregationFunction) {
 
             return withRules(List.of(rule1, rule2, rule3, rule4, rule5, rule6, rule7, rule8),
-                    (t, s) -> aggregationFunction.apply(
+                    (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(
                             t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3], (E5) s[4], (E6) s[5], (E7) s[6], (E8) s[7]));
         }
 
@@ -185,7 +206,7 @@ public interface AssemblerBuilder {
                 Function10<T, E1, E2, E3, E4, E5, E6, E7, E8, E9, R> aggregationFunction) {
 
             return withRules(List.of(rule1, rule2, rule3, rule4, rule5, rule6, rule7, rule8, rule9),
-                    (t, s) -> aggregationFunction.apply(
+                    (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(
                             t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3], (E5) s[4], (E6) s[5], (E7) s[6], (E8) s[7], (E9) s[8]));
         }
 
@@ -204,7 +225,7 @@ public interface AssemblerBuilder {
                 Function11<T, E1, E2, E3, E4, E5, E6, E7, E8, E9, E10, R> aggregationFunction) {
 
             return withRules(List.of(rule1, rule2, rule3, rule4, rule5, rule6, rule7, rule8, rule9, rule10),
-                    (t, s) -> aggregationFunction.apply(
+                    (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(
                             t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3], (E5) s[4], (E6) s[5], (E7) s[6], (E8) s[7], (E9) s[8], (E10) s[9]));
         }
 
@@ -224,7 +245,7 @@ public interface AssemblerBuilder {
                 Function12<T, E1, E2, E3, E4, E5, E6, E7, E8, E9, E10, E11, R> aggregationFunction) {
 
             return withRules(List.of(rule1, rule2, rule3, rule4, rule5, rule6, rule7, rule8, rule9, rule10, rule11),
-                    (t, s) -> aggregationFunction.apply(
+                    (UnpackingAggregationFunction<T, R>) (t, s) -> aggregationFunction.apply(
                             t, (E1) s[0], (E2) s[1], (E3) s[2], (E4) s[3], (E5) s[4], (E6) s[5], (E7) s[6], (E8) s[7], (E9) s[8], (E10) s[9], (E11) s[10]));
         }
 
@@ -242,6 +263,14 @@ public interface AssemblerBuilder {
             return build(fluxAdapter(scheduler));
         }
 
+        default Assembler<T, R> build(Supplier<ConcurrencyLimiter> ruleConcurrencyLimiterFactory, ConcurrencyLimiter assemblerConcurrencyLimiter) {
+            return build(fluxAdapter(ruleConcurrencyLimiterFactory, assemblerConcurrencyLimiter));
+        }
+
+        default Assembler<T, R> build(Scheduler scheduler, Supplier<ConcurrencyLimiter> ruleConcurrencyLimiterFactory, ConcurrencyLimiter assemblerConcurrencyLimiter) {
+            return build(fluxAdapter(scheduler, ruleConcurrencyLimiterFactory, assemblerConcurrencyLimiter));
+        }
+
         Assembler<T, R> build(AssemblerAdapter<T, K, R> adapter);
     }
 }
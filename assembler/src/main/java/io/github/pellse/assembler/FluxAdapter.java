@@ -16,22 +16,34 @@
 
 package io.github.pellse.assembler;
 
+import io.github.pellse.concurrent.ConcurrencyLimiter;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static io.github.pellse.util.reactive.ReactiveUtils.subscribeMonoOn;
+import static java.util.Arrays.asList;
+import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor;
-import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static reactor.core.publisher.Flux.fromIterable;
 import static reactor.core.publisher.Flux.zip;
 import static reactor.core.publisher.Mono.from;
 import static reactor.core.scheduler.Schedulers.*;
 
 public interface FluxAdapter {
 
+    int DEFAULT_WINDOW_CONCURRENCY = 4;
+
     static <T, K, R> AssemblerAdapter<T, K, R> fluxAdapter() {
         return fluxAdapter(DEFAULT_BOUNDED_ELASTIC_ON_VIRTUAL_THREADS);
     }
@@ -41,22 +53,141 @@ public interface FluxAdapter {
     }
 
     static <T, K, R> AssemblerAdapter<T, K, R> fluxAdapter(Scheduler scheduler) {
+        return fluxAdapter(scheduler, null, null);
+    }
+
+    static <T, K, R> AssemblerAdapter<T, K, R> fluxAdapter(Supplier<ConcurrencyLimiter> ruleConcurrencyLimiterFactory, ConcurrencyLimiter assemblerConcurrencyLimiter) {
+        return fluxAdapter(defaultScheduler(), ruleConcurrencyLimiterFactory, assemblerConcurrencyLimiter);
+    }
+
+    static <T, K, R> AssemblerAdapter<T, K, R> fluxAdapter(
+            Scheduler scheduler,
+            Supplier<ConcurrencyLimiter> ruleConcurrencyLimiterFactory,
+            ConcurrencyLimiter assemblerConcurrencyLimiter) {
+
+        final var subQueryDecorator = subQueryDecorator(scheduler, ruleConcurrencyLimiterFactory, assemblerConcurrencyLimiter);
 
         return (topLevelEntitiesProvider, subQueryMapperBuilder, aggregateStreamBuilder) -> Flux.from(topLevelEntitiesProvider)
                 .collectList()
                 .flatMapMany(entities ->
-                        zip(subQueryMapperBuilder.apply(entities).map(publisher -> from(publisher).transform(subscribeMonoOn(scheduler))).toList(),
+                        zip(decorate(subQueryMapperBuilder.apply(entities).toList(), subQueryDecorator),
                                 mapperResults -> aggregateStreamBuilder.apply(entities, toMapperResultList(mapperResults))))
 //                .publishOn(scheduler) // from(publisher) above can itself switch to a different scheduler e.g. StreamTable
                 .flatMapSequential(Flux::fromStream);
     }
 
+    static <T, K, R> AssemblerAdapter<T, K, R> windowedFluxAdapter(int maxWindowSize) {
+        return windowedFluxAdapter(maxWindowSize, DEFAULT_WINDOW_CONCURRENCY, true);
+    }
+
+    static <T, K, R> AssemblerAdapter<T, K, R> windowedFluxAdapter(Duration maxWindowTime) {
+        return windowedFluxAdapter(Integer.MAX_VALUE, maxWindowTime);
+    }
+
+    static <T, K, R> AssemblerAdapter<T, K, R> windowedFluxAdapter(int maxWindowSize, Duration maxWindowTime) {
+        return windowedFluxAdapter(maxWindowSize, maxWindowTime, DEFAULT_WINDOW_CONCURRENCY, true);
+    }
+
+    static <T, K, R> AssemblerAdapter<T, K, R> windowedFluxAdapter(int maxWindowSize, int concurrency, boolean preserveOrder) {
+        return windowedFluxAdapter(maxWindowSize, concurrency, preserveOrder, fluxAdapter(defaultScheduler()));
+    }
+
+    static <T, K, R> AssemblerAdapter<T, K, R> windowedFluxAdapter(int maxWindowSize, Duration maxWindowTime, int concurrency, boolean preserveOrder) {
+        return windowedFluxAdapter(maxWindowSize, maxWindowTime, concurrency, preserveOrder, defaultScheduler());
+    }
+
+    static <T, K, R> AssemblerAdapter<T, K, R> windowedFluxAdapter(int maxWindowSize, Duration maxWindowTime, int concurrency, boolean preserveOrder, Scheduler scheduler) {
+        return windowedFluxAdapter(maxWindowSize, maxWindowTime, concurrency, preserveOrder, fluxAdapter(scheduler));
+    }
+
+    /**
+     * @param windowAdapter assembles each window, e.g. {@code fluxAdapter(ruleConcurrencyLimiterFactory, assemblerConcurrencyLimiter)},
+     *                      its limiters are shared by all windows in flight
+     */
+    static <T, K, R> AssemblerAdapter<T, K, R> windowedFluxAdapter(int maxWindowSize, int concurrency, boolean preserveOrder, AssemblerAdapter<T, K, R> windowAdapter) {
+        requireValidWindowing(maxWindowSize, concurrency);
+        return windowedFluxAdapter(flux -> flux.buffer(maxWindowSize), concurrency, preserveOrder, windowAdapter);
+    }
+
+    /**
+     * @param windowAdapter assembles each window, e.g. {@code fluxAdapter(ruleConcurrencyLimiterFactory, assemblerConcurrencyLimiter)},
+     *                      its limiters are shared by all windows in flight
+     */
+    static <T, K, R> AssemblerAdapter<T, K, R> windowedFluxAdapter(int maxWindowSize, Duration maxWindowTime, int concurrency, boolean preserveOrder, AssemblerAdapter<T, K, R> windowAdapter) {
+        requireValidWindowing(maxWindowSize, concurrency);
+        requireNonNull(maxWindowTime, "maxWindowTime cannot be null");
+
+        return windowedFluxAdapter(
+                maxWindowSize == Integer.MAX_VALUE ? flux -> flux.buffer(maxWindowTime) : flux -> flux.bufferTimeout(maxWindowSize, maxWindowTime),
+                concurrency,
+                preserveOrder,
+                windowAdapter);
+    }
+
+    private static <T, K, R> AssemblerAdapter<T, K, R> windowedFluxAdapter(
+            Function<Flux<T>, Flux<List<T>>> windowingStrategy,
+            int concurrency,
+            boolean preserveOrder,
+            AssemblerAdapter<T, K, R> windowAdapter) {
+
+        requireNonNull(windowAdapter, "windowAdapter cannot be null");
+
+        return (topLevelEntitiesProvider, subQueryMapperBuilder, aggregateStreamBuilder) -> {
+
+            final Function<List<T>, Flux<R>> windowAssembler = window ->
+                    windowAdapter.convertSubQueryMappers(fromIterable(window), subQueryMapperBuilder, aggregateStreamBuilder);
+
+            return Flux.from(topLevelEntitiesProvider)
+                    .transform(windowingStrategy)
+                    .transform(windows -> preserveOrder ? windows.flatMapSequential(windowAssembler, concurrency) : windows.flatMap(windowAssembler, concurrency));
+        };
+    }
+
+    private static void requireValidWindowing(int maxWindowSize, int concurrency) {
+        if (maxWindowSize <= 0) {
+            throw new IllegalArgumentException("maxWindowSize must be greater than 0, was " + maxWindowSize);
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be greater than 0, was " + concurrency);
+        }
+    }
+
+    /**
+     * Limiters are only applied when configured, one rule limiter is created per rule and shared by all {@code assemble()} calls,
+     * a sub-query takes its rule permit first so a saturated rule cannot hold assembler permits while waiting
+     */
+    private static BiFunction<Integer, Mono<?>, Mono<?>> subQueryDecorator(
+            Scheduler scheduler,
+            Supplier<ConcurrencyLimiter> ruleConcurrencyLimiterFactory,
+            ConcurrencyLimiter assemblerConcurrencyLimiter) {
+
+        final Function<Mono<?>, Mono<?>> scheduledSubQuery = assemblerConcurrencyLimiter == null
+                ? mono -> mono.transform(subscribeMonoOn(scheduler))
+                : mono -> assemblerConcurrencyLimiter.limit(mono.transform(subscribeMonoOn(scheduler)));
+
+        if (ruleConcurrencyLimiterFactory == null) {
+            return (__, mono) -> scheduledSubQuery.apply(mono);
+        }
+
+        final var ruleLimiters = new ConcurrentHashMap<Integer, ConcurrencyLimiter>();
+
+        return (ruleIndex, mono) -> ruleLimiters.computeIfAbsent(ruleIndex, __ -> ruleConcurrencyLimiterFactory.get())
+                .limit(scheduledSubQuery.apply(mono));
+    }
+
+    private static List<Mono<?>> decorate(List<? extends Publisher<?>> publishers, BiFunction<Integer, Mono<?>, Mono<?>> subQueryDecorator) {
+        return range(0, publishers.size())
+                .<Mono<?>>mapToObj(i -> subQueryDecorator.apply(i, from(publishers.get(i))))
+                .toList();
+    }
+
     @SuppressWarnings("unchecked")
     private static <K> List<Map<K, ?>> toMapperResultList(Object[] mapperResults) {
+        return (List<Map<K, ?>>) (List<?>) asList(mapperResults);
+    }
 
-        return Stream.of(mapperResults)
-                .map(mapResult -> (Map<K, ?>) mapResult)
-                .collect(toList());
+    private static Scheduler defaultScheduler() {
+        return DEFAULT_BOUNDED_ELASTIC_ON_VIRTUAL_THREADS ? getVirtualThreadScheduler() : parallel();
     }
 
     private static Scheduler getVirtualThreadScheduler() {
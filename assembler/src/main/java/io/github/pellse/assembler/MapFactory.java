@@ -16,6 +16,9 @@
 
 package io.github.pellse.assembler;
 
+import io.github.pellse.util.collection.IntKeyHashMap;
+import io.github.pellse.util.collection.LongKeyHashMap;
+
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
@@ -23,6 +26,27 @@ import java.util.function.Function;
 public interface MapFactory<ID, R> extends Function<Integer, Map<ID, R>> {
 
     static <ID, R> MapFactory<ID, R> defaultMapFactory() {
-        return HashMap::newHashMap;
+        return (KeyMapFactory<ID, R>) HashMap::newHashMap;
+    }
+
+    static <R> MapFactory<Long, R> longKeyMapFactory() {
+        return (KeyMapFactory<Long, R>) LongKeyHashMap::new;
+    }
+
+    static <R> MapFactory<Integer, R> intKeyMapFactory() {
+        return (KeyMapFactory<Integer, R>) IntKeyHashMap::new;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <ID, V> MapFactory<ID, V> keyMapFactory(MapFactory<ID, ?> mapFactory) {
+        return mapFactory instanceof KeyMapFactory<ID, ?> keyMapFactory ? (MapFactory<ID, V>) keyMapFactory : defaultMapFactory();
+    }
+
+    /**
+     * Marker for {@link MapFactory} implementations whose maps only depend on the key type,
+     * so they can be reused for other value types (e.g. lookup tables) through {@link #keyMapFactory(MapFactory)}
+     */
+    @FunctionalInterface
+    interface KeyMapFactory<ID, R> extends MapFactory<ID, R> {
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler;
+
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.groupingBy;
+import static reactor.core.publisher.Flux.defer;
+
+final class QueryCoalescer<T, TC extends Collection<T>, ID, R> implements Function<TC, Publisher<R>> {
+
+    private final Function<TC, Publisher<R>> queryFunction;
+    private final Function<T, ID> outerIdResolver;
+    private final Function<R, ID> innerIdResolver;
+    private final Supplier<TC> topLevelCollectionFactory;
+    private final int maxBatchSize;
+    private final Duration maxDelay;
+    private final Scheduler scheduler;
+
+    private Batch currentBatch;
+
+    QueryCoalescer(
+            Function<TC, Publisher<R>> queryFunction,
+            RuleContext<T, TC, ?, ID, R, ?> ruleContext,
+            int maxBatchSize,
+            Duration maxDelay,
+            Scheduler scheduler) {
+
+        this.queryFunction = queryFunction;
+        this.outerIdResolver = ruleContext.outerIdResolver();
+        this.innerIdResolver = ruleContext.innerIdResolver();
+        this.topLevelCollectionFactory = ruleContext.topLevelCollectionFactory();
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * A batch is executed as soon as it holds {@code maxBatchSize} distinct ids, the entities of a single call are split
+     * across as many batches as needed so that no query is ever issued for more than {@code maxBatchSize} ids
+     */
+    @Override
+    public Publisher<R> apply(TC entities) {
+        return defer(() -> {
+            final var ids = new HashSet<ID>();
+            final Map<Batch, List<ID>> idsByBatch = new LinkedHashMap<>();
+            final var fullBatches = new ArrayList<Batch>();
+
+            synchronized (this) {
+                for (T entity : entities) {
+                    final var id = outerIdResolver.apply(entity);
+                    if (!ids.add(id)) {
+                        continue;
+                    }
+
+                    final var batch = currentBatch != null ? currentBatch : newBatch();
+                    if (batch.ids.add(id)) {
+                        batch.entities.add(entity);
+                    }
+                    idsByBatch.computeIfAbsent(batch, __ -> new ArrayList<>()).add(id);
+
+                    if (batch.ids.size() >= maxBatchSize) {
+                        currentBatch = null;
+                        fullBatches.add(batch);
+                    }
+                }
+            }
+
+            for (var batch : fullBatches) {
+                batch.timer.dispose();
+                execute(batch);
+            }
+
+            return Flux.fromIterable(idsByBatch.entrySet())
+                    .concatMap(entry -> entry.getKey().results.asMono()
+                            .flatMapIterable(resultsById -> entry.getValue().stream()
+                                    .map(resultsById::get)
+                                    .filter(Objects::nonNull)
+                                    .flatMap(List::stream)
+                                    .toList()));
+        });
+    }
+
+    // Only called while holding the lock on this
+    private Batch newBatch() {
+        final var batch = new Batch();
+        batch.timer = scheduler.schedule(() -> flushOnTimeout(batch), maxDelay.toNanos(), NANOSECONDS);
+        currentBatch = batch;
+        return batch;
+    }
+
+    private void flushOnTimeout(Batch batch) {
+        synchronized (this) {
+            if (currentBatch != batch) {
+                return;
+            }
+            currentBatch = null;
+        }
+        execute(batch);
+    }
+
+    // Deferred so that a query function throwing synchronously (possibly on the timer thread) fails the batch
+    // instead of leaving every coalesced caller waiting forever
+    private void execute(Batch batch) {
+        defer(() -> queryFunction.apply(batch.entities))
+                .collect(groupingBy(innerIdResolver))
+                .subscribe(batch.results::tryEmitValue, batch.results::tryEmitError);
+    }
+
+    private class Batch {
+        private final TC entities = topLevelCollectionFactory.get();
+        private final Set<ID> ids = new HashSet<>();
+        private final Sinks.One<Map<ID, List<R>>> results = Sinks.one();
+        private Disposable timer;
+    }
+}
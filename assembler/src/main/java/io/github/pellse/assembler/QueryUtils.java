@@ -17,6 +17,8 @@
 package io.github.pellse.assembler;
 
 import io.github.pellse.util.collection.CollectionUtils;
+import io.github.pellse.util.collection.IntKeyHashMap;
+import io.github.pellse.util.collection.LongKeyHashMap;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -26,10 +28,13 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static io.github.pellse.assembler.RuleMapperSource.nullToEmptySource;
+import static io.github.pellse.util.ObjectUtils.also;
 import static io.github.pellse.util.ObjectUtils.isSafeEqual;
-import static io.github.pellse.util.collection.CollectionUtils.*;
+import static io.github.pellse.util.collection.CollectionUtils.translate;
+import static java.lang.Math.max;
+import static java.util.LinkedHashMap.newLinkedHashMap;
 import static java.util.Objects.*;
-import static java.util.function.Predicate.not;
+import static java.util.function.Function.identity;
 import static reactor.core.publisher.Flux.fromIterable;
 
 public interface QueryUtils {
@@ -45,7 +50,7 @@ public interface QueryUtils {
 
             return safeApply(entities, queryFunction)
                     .collect(ctx.mapCollector().apply(entities.size()))
-                    .map(map -> toResultMap(entities, map, ctx.outerIdResolver(), ctx.defaultResultProvider()));
+                    .map(map -> fillResultMap(entities, map, ctx.outerIdResolver(), ctx.defaultResultProvider()));
         };
     }
 
@@ -71,23 +76,51 @@ public interface QueryUtils {
 
         return isSafeEqual(map, Map::size, entities, Collection::size)
                 ? map
-                : initializeResultMap(transform(entities, topLevelIdResolver), map, defaultResultProvider);
+                : fillResultMap(entities, copyResultMap(map, entities.size()), topLevelIdResolver, defaultResultProvider);
     }
 
     static <ID, RRC> Map<ID, RRC> initializeResultMap(Collection<ID> ids, Map<ID, RRC> resultMap, Function<ID, RRC> defaultResultProvider) {
+        return fillResultMap(ids, copyResultMap(resultMap, ids.size()), identity(), defaultResultProvider);
+    }
+
+    // Mutates resultMap in place, only call with a map owned by the caller (e.g. freshly collected from a MapFactory),
+    // the result is copied into a LinkedHashMap first when a null default value has to be added to a map that may not
+    // accept null values (e.g. a ConcurrentHashMap from a custom MapFactory)
+    static <T, ID, RRC> Map<ID, RRC> fillResultMap(
+            Iterable<T> entities,
+            Map<ID, RRC> resultMap,
+            Function<T, ID> topLevelIdResolver,
+            Function<ID, RRC> defaultResultProvider) {
+
+        if (entities instanceof Collection<?> c && isSafeEqual(resultMap, Map::size, c, Collection::size)) {
+            return resultMap;
+        }
+
         final Function<ID, RRC> resultProvider = requireNonNullElse(defaultResultProvider, id -> null);
 
-        final Map<ID, RRC> resultLinkedHashMap = toLinkedHashMap(resultMap);
-        final Set<ID> idsFromQueryResult = resultLinkedHashMap.keySet();
-        final Map<ID, RRC> resultMapCopy = new LinkedHashMap<>(resultLinkedHashMap);
+        var filledMap = resultMap;
+
+        // defaultResultProvider can provide a null value, so we cannot use a Collector or putIfAbsent() here
+        for (T entity : entities) {
+            final ID id = topLevelIdResolver.apply(entity);
+            if (!filledMap.containsKey(id)) {
+                final var value = resultProvider.apply(id);
+                if (value == null && filledMap == resultMap && !acceptsNullValues(resultMap)) {
+                    filledMap = copyResultMap(resultMap, resultMap.size() + 1);
+                }
+                filledMap.put(id, value);
+            }
+        }
+
+        return filledMap;
+    }
 
-        // defaultResultProvider can provide a null value, so we cannot use a Collector here
-        // as it would throw a NullPointerException
-        ids.stream()
-                .filter(not(idsFromQueryResult::contains))
-                .forEach(id -> resultMapCopy.put(id, resultProvider.apply(id)));
+    private static boolean acceptsNullValues(Map<?, ?> map) {
+        return map instanceof HashMap<?, ?> || map instanceof LongKeyHashMap<?> || map instanceof IntKeyHashMap<?>;
+    }
 
-        return resultMapCopy;
+    private static <ID, RRC> Map<ID, RRC> copyResultMap(Map<ID, RRC> resultMap, int expectedSize) {
+        return also(newLinkedHashMap(max(expectedSize, resultMap.size())), copy -> copy.putAll(resultMap));
     }
 
     static <ID, R> Supplier<Map<ID, R>> toMapSupplier(int initialCapacity, MapFactory<ID, R> mapFactory) {
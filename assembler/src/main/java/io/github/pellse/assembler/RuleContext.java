@@ -22,7 +22,7 @@ import java.util.List;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-import static io.github.pellse.assembler.MapFactory.defaultMapFactory;
+import static io.github.pellse.assembler.MapFactory.*;
 
 public interface RuleContext<T, TC extends Collection<T>, K, ID, R, RRC> {
 
@@ -86,4 +86,26 @@ public interface RuleContext<T, TC extends Collection<T>, K, ID, R, RRC> {
 
         return topLevelIdResolver -> new DefaultRuleContext<>(topLevelIdResolver, innerIdResolver, outerIdResolver, topLevelCollectionFactory, mapFactory);
     }
+
+    static <T, R, RRC> Function<Function<T, Long>, RuleContext<T, List<T>, Long, Long, R, RRC>> longKeyRuleContext(
+            Function<R, Long> correlationIdResolver) {
+        return ruleContext(correlationIdResolver, ArrayList::new, longKeyMapFactory());
+    }
+
+    static <T, K, R, RRC> Function<Function<T, K>, RuleContext<T, List<T>, K, Long, R, RRC>> longKeyRuleContext(
+            Function<R, Long> innerIdResolver,
+            Function<T, Long> outerIdResolver) {
+        return ruleContext(innerIdResolver, outerIdResolver, ArrayList::new, longKeyMapFactory());
+    }
+
+    static <T, R, RRC> Function<Function<T, Integer>, RuleContext<T, List<T>, Integer, Integer, R, RRC>> intKeyRuleContext(
+            Function<R, Integer> correlationIdResolver) {
+        return ruleContext(correlationIdResolver, ArrayList::new, intKeyMapFactory());
+    }
+
+    static <T, K, R, RRC> Function<Function<T, K>, RuleContext<T, List<T>, K, Integer, R, RRC>> intKeyRuleContext(
+            Function<R, Integer> innerIdResolver,
+            Function<T, Integer> outerIdResolver) {
+        return ruleContext(innerIdResolver, outerIdResolver, ArrayList::new, intKeyMapFactory());
+    }
 }
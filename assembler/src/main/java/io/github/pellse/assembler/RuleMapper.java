@@ -25,6 +25,7 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import static io.github.pellse.assembler.MapFactory.keyMapFactory;
 import static io.github.pellse.assembler.QueryUtils.*;
 import static io.github.pellse.assembler.RuleMapperSource.*;
 import static io.github.pellse.util.ObjectUtils.then;
@@ -136,7 +137,7 @@ public interface RuleMapper<T, TC extends Collection<T>, K, ID, R, RRC>
         @SuppressWarnings("unchecked")
         final Function<Map<ID, RRC>, Map<K, RRC>> mappingFunction = ctx.topLevelIdResolver() == ctx.outerIdResolver()
                 ? map -> (Map<K, RRC>) map
-                : then(lookupTableFrom(entities, ctx.outerIdResolver(), ctx.topLevelIdResolver()), lookupTable -> map -> newMap(m -> map.forEach((id, v) -> lookupTable.get(id).forEach(mappedId -> m.put(mappedId, v)))));
+                : then(lookupTableFrom(entities, ctx.outerIdResolver(), ctx.topLevelIdResolver(), toMapSupplier(size(entities), keyMapFactory(ctx.mapFactory()))), lookupTable -> map -> newMap(m -> map.forEach((id, v) -> lookupTable.get(id).forEach(mappedId -> m.put(mappedId, v)))));
 
         return queryFunction.apply(entities)
                 .map(mappingFunction);
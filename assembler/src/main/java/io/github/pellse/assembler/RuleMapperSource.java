@@ -18,7 +18,9 @@ package io.github.pellse.assembler;
 
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.function.Function;
@@ -26,6 +28,8 @@ import java.util.function.Function;
 import static io.github.pellse.util.collection.CollectionUtils.toStream;
 import static java.util.Arrays.stream;
 import static java.util.Objects.requireNonNullElse;
+import static reactor.core.publisher.Flux.fromIterable;
+import static reactor.core.scheduler.Schedulers.parallel;
 
 /**
  * @param <ID>  Correlation Id type
@@ -37,6 +41,8 @@ import static java.util.Objects.requireNonNullElse;
 public interface RuleMapperSource<T, TC extends Collection<T>, K, ID, EID, R, RRC, CTX extends RuleMapperContext<T, TC, K, ID, EID, R, RRC>>
         extends Function<CTX, Function<TC, Publisher<R>>> {
 
+    int DEFAULT_CHUNK_PARALLELISM = 4;
+
     RuleMapperSource<?, Collection<Object>, ?, ?, ?, ?, ?, RuleMapperContext<Object, Collection<Object>, Object, Object, Object, Object, Object>> EMPTY_SOURCE = ruleContext -> ids -> Mono.empty();
 
     static <T, TC extends Collection<T>, K, ID, EID, R, RRC, CTX extends RuleMapperContext<T, TC, K, ID, EID, R, RRC>> RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX> from(Function<TC, Publisher<R>> queryFunction) {
@@ -54,6 +60,76 @@ public interface RuleMapperSource<T, TC extends Collection<T>, K, ID, EID, R, RR
         return __ -> entities -> queryFunction.apply(toStream(entities).map(idResolver).toList());
     }
 
+    static <T, TC extends Collection<T>, K, ID, EID, R, RRC, CTX extends RuleMapperContext<T, TC, K, ID, EID, R, RRC>> RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX> call(
+            Function<List<ID>, Publisher<R>> queryFunction,
+            int chunkSize) {
+
+        return call(queryFunction, chunkSize, DEFAULT_CHUNK_PARALLELISM);
+    }
+
+    static <T, TC extends Collection<T>, K, ID, EID, R, RRC, CTX extends RuleMapperContext<T, TC, K, ID, EID, R, RRC>> RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX> call(
+            Function<List<ID>, Publisher<R>> queryFunction,
+            int chunkSize,
+            int parallelism) {
+
+        return ruleContext -> RuleMapperSource.<T, TC, K, ID, EID, R, RRC, CTX>call(ruleContext.outerIdResolver(), queryFunction, chunkSize, parallelism).apply(ruleContext);
+    }
+
+    static <T, TC extends Collection<T>, K, ID, EID, R, RRC, CTX extends RuleMapperContext<T, TC, K, ID, EID, R, RRC>> RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX> call(
+            Function<T, ID> idResolver,
+            Function<List<ID>, Publisher<R>> queryFunction,
+            int chunkSize,
+            int parallelism) {
+
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be greater than 0, was " + chunkSize);
+        }
+
+        return __ -> entities -> {
+            final var ids = toStream(entities).map(idResolver).distinct().toList();
+
+            return ids.size() <= chunkSize
+                    ? queryFunction.apply(ids)
+                    : fromIterable(ids).buffer(chunkSize).flatMap(queryFunction, parallelism);
+        };
+    }
+
+    static <T, TC extends Collection<T>, K, ID, EID, R, RRC, CTX extends RuleMapperContext<T, TC, K, ID, EID, R, RRC>> Function<RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX>, RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX>> coalesce(
+            int maxBatchSize,
+            Duration maxDelay) {
+
+        return ruleMapperSource -> coalesce(ruleMapperSource, maxBatchSize, maxDelay);
+    }
+
+    static <T, TC extends Collection<T>, K, ID, EID, R, RRC, CTX extends RuleMapperContext<T, TC, K, ID, EID, R, RRC>> RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX> coalesce(
+            Function<TC, Publisher<R>> queryFunction,
+            int maxBatchSize,
+            Duration maxDelay) {
+
+        return coalesce(from(queryFunction), maxBatchSize, maxDelay);
+    }
+
+    static <T, TC extends Collection<T>, K, ID, EID, R, RRC, CTX extends RuleMapperContext<T, TC, K, ID, EID, R, RRC>> RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX> coalesce(
+            RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX> ruleMapperSource,
+            int maxBatchSize,
+            Duration maxDelay) {
+
+        return coalesce(ruleMapperSource, maxBatchSize, maxDelay, parallel());
+    }
+
+    static <T, TC extends Collection<T>, K, ID, EID, R, RRC, CTX extends RuleMapperContext<T, TC, K, ID, EID, R, RRC>> RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX> coalesce(
+            RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX> ruleMapperSource,
+            int maxBatchSize,
+            Duration maxDelay,
+            Scheduler scheduler) {
+
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be greater than 0, was " + maxBatchSize);
+        }
+
+        return ruleContext -> new QueryCoalescer<>(nullToEmptySource(ruleMapperSource).apply(ruleContext), ruleContext, maxBatchSize, maxDelay, scheduler);
+    }
+
     @SuppressWarnings("unchecked")
     static <T, TC extends Collection<T>, K, ID, EID, R, RRC, CTX extends RuleMapperContext<T, TC, K, ID, EID, R, RRC>> RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX> emptySource() {
         return (RuleMapperSource<T, TC, K, ID, EID, R, RRC, CTX>) EMPTY_SOURCE;
@@ -18,8 +18,42 @@ package io.github.pellse.assembler;
 
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.function.Function;
 
+import static io.github.pellse.assembler.AdaptiveWindowSize.adaptiveWindowSize;
+import static reactor.core.publisher.Flux.defer;
+
 @FunctionalInterface
 public interface WindowingStrategy<R> extends Function<Flux<R>, Flux<Flux<R>>> {
+
+    int DEFAULT_MAX_ADAPTIVE_WINDOW_SIZE = 10_000;
+
+    static <R> WindowingStrategy<R> adaptiveWindowingStrategy(Duration targetLatency) {
+        return adaptiveWindowingStrategy(1, DEFAULT_MAX_ADAPTIVE_WINDOW_SIZE, targetLatency);
+    }
+
+    /**
+     * Sizes each window from the observed event rate so that filling it takes about {@code targetLatency}:
+     * single event windows when idle, up to {@code maxWindowSize} events during bursts or when catching up on a backlog.
+     * A window is always closed after {@code targetLatency} regardless of its size.
+     */
+    static <R> WindowingStrategy<R> adaptiveWindowingStrategy(int minWindowSize, int maxWindowSize, Duration targetLatency) {
+        if (minWindowSize < 1 || maxWindowSize < minWindowSize) {
+            throw new IllegalArgumentException("Invalid window size range [" + minWindowSize + ", " + maxWindowSize + "]");
+        }
+        if (targetLatency.isNegative() || targetLatency.isZero()) {
+            throw new IllegalArgumentException("targetLatency must be positive, was " + targetLatency);
+        }
+
+        return flux -> defer(() -> {
+            final var windowSize = adaptiveWindowSize(minWindowSize, maxWindowSize, targetLatency);
+
+            return flux.windowTimeout(maxWindowSize, targetLatency)
+                    .concatMap(window -> defer(() -> {
+                        windowSize.startWindow();
+                        return window.windowUntil(__ -> windowSize.isLastEventOfWindow());
+                    }));
+        });
+    }
 }
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.caching;
+
+import io.github.pellse.assembler.caching.BoundedCacheFactory.BoundedCacheConfig;
+import io.github.pellse.assembler.caching.Cache.FetchFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+import static io.github.pellse.assembler.caching.BoundedCacheFactory.UNBOUNDED;
+import static io.github.pellse.util.collection.CollectionUtils.isEmpty;
+import static java.lang.Math.min;
+import static reactor.core.publisher.Mono.just;
+
+/**
+ * Segmented LRU cache: new entries go to a probation segment and are promoted to a protected segment
+ * (80% of the capacity) when read again, so one off scans only evict other one off entries.
+ */
+final class BoundedCache<ID, RRC> implements Cache<ID, RRC> {
+
+    private static final double PROTECTED_RATIO = 0.8;
+    private static final long NO_EXPIRY = -1;
+
+    private final long maxSize;
+    private final long maxWeight;
+    private final long maxProtectedSize;
+    private final long maxProtectedWeight;
+    private final ToLongFunction<? super RRC> weigher;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final long sweepIntervalNanos;
+    private final LongSupplier ticker;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<ID, Node<ID, RRC>> entries = new HashMap<>();
+    private final Node<ID, RRC> probation = sentinel();
+    private final Node<ID, RRC> protectedSegment = sentinel();
+
+    private long weight;
+    private long protectedSize;
+    private long protectedWeight;
+    private long nextSweep;
+
+    BoundedCache(BoundedCacheConfig<RRC> config) {
+        maxSize = config.maxSize();
+        maxWeight = config.maxWeight();
+        maxProtectedSize = protectedShare(maxSize);
+        maxProtectedWeight = protectedShare(maxWeight);
+        weigher = config.weigher();
+        expireAfterWriteNanos = toNanos(config.expireAfterWrite());
+        expireAfterAccessNanos = toNanos(config.expireAfterAccess());
+        sweepIntervalNanos = sweepInterval(expireAfterWriteNanos, expireAfterAccessNanos);
+        ticker = config.ticker();
+        nextSweep = ticker.getAsLong() + sweepIntervalNanos;
+    }
+
+    @Override
+    public Mono<Map<ID, RRC>> getAll(Iterable<ID> ids) {
+        return just(readAll(ids));
+    }
+
+    @Override
+    public Mono<Map<ID, RRC>> computeAll(Iterable<ID> ids, FetchFunction<ID, RRC> fetchFunction) {
+
+        final var cachedEntities = readAll(ids);
+
+        final var missingIds = new LinkedHashSet<ID>();
+        ids.forEach(id -> {
+            if (!cachedEntities.containsKey(id)) {
+                missingIds.add(id);
+            }
+        });
+
+        if (missingIds.isEmpty()) {
+            return just(cachedEntities);
+        }
+
+        return fetchFunction.apply(missingIds)
+                .map(fetchedEntities -> {
+                    final var resultMap = new HashMap<>(cachedEntities);
+                    final var entitiesToCache = new HashMap<ID, RRC>();
+
+                    missingIds.forEach(id -> {
+                        final var value = fetchedEntities.get(id);
+                        if (value != null) {
+                            entitiesToCache.put(id, value);
+                            resultMap.put(id, value);
+                        }
+                    });
+
+                    writeAll(entitiesToCache);
+                    return resultMap;
+                });
+    }
+
+    @Override
+    public Mono<?> putAll(Map<ID, RRC> map) {
+        writeAll(map);
+        return just(map);
+    }
+
+    @Override
+    public Mono<?> removeAll(Map<ID, RRC> map) {
+        if (!isEmpty(map)) {
+            lock.lock();
+            try {
+                map.keySet().forEach(id -> {
+                    final var node = entries.remove(id);
+                    if (node != null) {
+                        unlink(node);
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+        return just(map);
+    }
+
+    @Override
+    public Mono<?> mergeAll(Map<ID, RRC> incomingChanges, MergeFunction<ID, RRC> mergeFunction) {
+        if (isEmpty(incomingChanges)) {
+            return just(incomingChanges);
+        }
+
+        lock.lock();
+        try {
+            final long now = ticker.getAsLong();
+
+            incomingChanges.forEach((id, incomingValue) -> {
+                var node = entries.get(id);
+                if (node != null && isExpired(node, now)) {
+                    entries.remove(id);
+                    unlink(node);
+                    node = null;
+                }
+
+                final var mergedValue = mergeFunction.merge(id, node != null ? node.value : null, incomingValue);
+                if (mergedValue == null) {
+                    if (node != null) {
+                        entries.remove(id);
+                        unlink(node);
+                    }
+                } else if (node != null) {
+                    update(node, mergedValue, now);
+                } else {
+                    insert(id, mergedValue, now);
+                }
+            });
+
+            expireEntries(now);
+            evictEntries();
+        } finally {
+            lock.unlock();
+        }
+        return just(incomingChanges);
+    }
+
+    private Map<ID, RRC> readAll(Iterable<ID> ids) {
+        final Map<ID, RRC> resultMap = new HashMap<>();
+
+        lock.lock();
+        try {
+            final long now = ticker.getAsLong();
+
+            for (ID id : ids) {
+                final var node = entries.get(id);
+                if (node == null) {
+                    continue;
+                }
+
+                if (isExpired(node, now)) {
+                    entries.remove(id);
+                    unlink(node);
+                    continue;
+                }
+
+                node.accessTime = now;
+                onAccess(node);
+                resultMap.put(id, node.value);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return resultMap;
+    }
+
+    private void writeAll(Map<ID, RRC> map) {
+        if (isEmpty(map)) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            final long now = ticker.getAsLong();
+
+            map.forEach((id, value) -> {
+                if (value == null) {
+                    final var node = entries.remove(id);
+                    if (node != null) {
+                        unlink(node);
+                    }
+                    return;
+                }
+
+                final var node = entries.get(id);
+                if (node != null) {
+                    update(node, value, now);
+                } else {
+                    insert(id, value, now);
+                }
+            });
+
+            expireEntries(now);
+            evictEntries();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void insert(ID id, RRC value, long now) {
+        final var node = new Node<>(id, value, weigh(value), now);
+
+        entries.put(id, node);
+        linkFirst(probation, node);
+        weight += node.weight;
+    }
+
+    private void update(Node<ID, RRC> node, RRC value, long now) {
+        final long newWeight = weigh(value);
+
+        weight += newWeight - node.weight;
+        if (node.isProtected) {
+            protectedWeight += newWeight - node.weight;
+        }
+
+        node.value = value;
+        node.weight = newWeight;
+        node.writeTime = now;
+        node.accessTime = now;
+        onAccess(node);
+    }
+
+    private void onAccess(Node<ID, RRC> node) {
+        unlinkNode(node);
+
+        if (!node.isProtected) {
+            node.isProtected = true;
+            protectedSize++;
+            protectedWeight += node.weight;
+        }
+        linkFirst(protectedSegment, node);
+
+        while ((protectedSize > maxProtectedSize || protectedWeight > maxProtectedWeight) && protectedSegment.prev != node) {
+            demote(protectedSegment.prev);
+        }
+    }
+
+    private void demote(Node<ID, RRC> node) {
+        unlinkNode(node);
+
+        node.isProtected = false;
+        protectedSize--;
+        protectedWeight -= node.weight;
+        linkFirst(probation, node);
+    }
+
+    private void evictEntries() {
+        while (entries.size() > maxSize || weight > maxWeight) {
+            final var victim = probation.prev != probation ? probation.prev : protectedSegment.prev;
+            if (victim == protectedSegment) {
+                return;
+            }
+
+            entries.remove(victim.key);
+            unlink(victim);
+        }
+    }
+
+    private void expireEntries(long now) {
+        if (sweepIntervalNanos == NO_EXPIRY || now - nextSweep < 0) {
+            return;
+        }
+
+        for (var iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            final var node = iterator.next();
+            if (isExpired(node, now)) {
+                iterator.remove();
+                unlink(node);
+            }
+        }
+        nextSweep = now + sweepIntervalNanos;
+    }
+
+    private boolean isExpired(Node<ID, RRC> node, long now) {
+        return (expireAfterWriteNanos != NO_EXPIRY && now - node.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos != NO_EXPIRY && now - node.accessTime >= expireAfterAccessNanos);
+    }
+
+    private long weigh(RRC value) {
+        return weigher != null ? weigher.applyAsLong(value) : 1;
+    }
+
+    // Removes the node from its segment and from the cache weight, without touching the entries map
+    private void unlink(Node<ID, RRC> node) {
+        unlinkNode(node);
+        weight -= node.weight;
+
+        if (node.isProtected) {
+            node.isProtected = false;
+            protectedSize--;
+            protectedWeight -= node.weight;
+        }
+    }
+
+    private static <ID, RRC> void unlinkNode(Node<ID, RRC> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node;
+        node.next = node;
+    }
+
+    private static <ID, RRC> void linkFirst(Node<ID, RRC> head, Node<ID, RRC> node) {
+        node.next = head.next;
+        node.prev = head;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+    private static <ID, RRC> Node<ID, RRC> sentinel() {
+        return new Node<>(null, null, 0, 0);
+    }
+
+    private static long protectedShare(long max) {
+        return max == UNBOUNDED ? UNBOUNDED : Math.max(1, (long) (max * PROTECTED_RATIO));
+    }
+
+    private static long toNanos(Duration duration) {
+        return duration != null ? duration.toNanos() : NO_EXPIRY;
+    }
+
+    private static long sweepInterval(long expireAfterWriteNanos, long expireAfterAccessNanos) {
+        if (expireAfterWriteNanos == NO_EXPIRY) {
+            return expireAfterAccessNanos;
+        }
+        return expireAfterAccessNanos == NO_EXPIRY ? expireAfterWriteNanos : min(expireAfterWriteNanos, expireAfterAccessNanos);
+    }
+
+    private static final class Node<ID, RRC> {
+
+        final ID key;
+        RRC value;
+        long weight;
+        long writeTime;
+        long accessTime;
+        boolean isProtected;
+
+        Node<ID, RRC> prev = this;
+        Node<ID, RRC> next = this;
+
+        Node(ID key, RRC value, long weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+}
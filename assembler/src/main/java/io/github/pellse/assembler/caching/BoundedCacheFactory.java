@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.caching;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+import static java.util.Objects.requireNonNull;
+
+public interface BoundedCacheFactory {
+
+    long UNBOUNDED = Long.MAX_VALUE;
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheFactory<ID, R, RRC, CTX> boundedCache(long maxSize) {
+        return boundedCache(BoundedCacheConfig.<RRC>boundedCacheConfig()
+                .withMaxSize(maxSize));
+    }
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheFactory<ID, R, RRC, CTX> boundedCache(Duration expireAfterAccess) {
+        return boundedCache(BoundedCacheConfig.<RRC>boundedCacheConfig()
+                .withExpireAfterAccess(expireAfterAccess));
+    }
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheFactory<ID, R, RRC, CTX> boundedCache(long maxSize, Duration expireAfterAccess) {
+        return boundedCache(BoundedCacheConfig.<RRC>boundedCacheConfig()
+                .withMaxSize(maxSize)
+                .withExpireAfterAccess(expireAfterAccess));
+    }
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheFactory<ID, R, RRC, CTX> boundedCache(BoundedCacheConfig<RRC> config) {
+
+        final var cache = new BoundedCache<ID, RRC>(config);
+        return __ -> cache;
+    }
+
+    record BoundedCacheConfig<RRC>(
+            long maxSize,
+            long maxWeight,
+            ToLongFunction<? super RRC> weigher,
+            Duration expireAfterWrite,
+            Duration expireAfterAccess,
+            LongSupplier ticker) {
+
+        public BoundedCacheConfig {
+            if (maxSize <= 0 || maxWeight <= 0) {
+                throw new IllegalArgumentException("maxSize and maxWeight must be greater than 0");
+            }
+            if (maxWeight != UNBOUNDED) {
+                requireNonNull(weigher, "weigher cannot be null when maxWeight is set");
+            }
+            validate(expireAfterWrite);
+            validate(expireAfterAccess);
+            requireNonNull(ticker, "ticker cannot be null");
+        }
+
+        public static <RRC> BoundedCacheConfig<RRC> boundedCacheConfig() {
+            return new BoundedCacheConfig<>(UNBOUNDED, UNBOUNDED, null, null, null, System::nanoTime);
+        }
+
+        public BoundedCacheConfig<RRC> withMaxSize(long maxSize) {
+            return new BoundedCacheConfig<>(maxSize, maxWeight, weigher, expireAfterWrite, expireAfterAccess, ticker);
+        }
+
+        public BoundedCacheConfig<RRC> withMaxWeight(long maxWeight, ToLongFunction<? super RRC> weigher) {
+            return new BoundedCacheConfig<>(maxSize, maxWeight, weigher, expireAfterWrite, expireAfterAccess, ticker);
+        }
+
+        public BoundedCacheConfig<RRC> withExpireAfterWrite(Duration expireAfterWrite) {
+            return new BoundedCacheConfig<>(maxSize, maxWeight, weigher, expireAfterWrite, expireAfterAccess, ticker);
+        }
+
+        public BoundedCacheConfig<RRC> withExpireAfterAccess(Duration expireAfterAccess) {
+            return new BoundedCacheConfig<>(maxSize, maxWeight, weigher, expireAfterWrite, expireAfterAccess, ticker);
+        }
+
+        public BoundedCacheConfig<RRC> withTicker(LongSupplier ticker) {
+            return new BoundedCacheConfig<>(maxSize, maxWeight, weigher, expireAfterWrite, expireAfterAccess, ticker);
+        }
+
+        private static void validate(Duration duration) {
+            if (duration != null && (duration.isNegative() || duration.isZero())) {
+                throw new IllegalArgumentException("Expiration duration must be positive: " + duration);
+            }
+        }
+    }
+}
@@ -20,12 +20,13 @@ import io.github.pellse.assembler.caching.CacheContext.OneToManyCacheContext;
 import reactor.core.publisher.Mono;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
-import static io.github.pellse.util.ObjectUtils.then;
 import static io.github.pellse.util.collection.CollectionUtils.*;
+import static java.util.HashMap.newHashMap;
 import static java.util.Map.of;
 import static java.util.Optional.ofNullable;
 import static reactor.core.publisher.Mono.*;
@@ -41,6 +42,15 @@ public interface Cache<ID, RRC> {
         Mono<?> updateCache(Cache<ID, RRC> cache, Map<ID, RRC> existingCacheItems, Map<ID, RRC> incomingChanges);
     }
 
+    @FunctionalInterface
+    interface MergeFunction<ID, RRC> {
+        /**
+         * @param existingValue null when {@code id} is not in the cache
+         * @return the value to cache for {@code id}, null removes {@code id} from the cache
+         */
+        RRC merge(ID id, RRC existingValue, RRC incomingValue);
+    }
+
     Mono<Map<ID, RRC>> getAll(Iterable<ID> ids);
 
     Mono<Map<ID, RRC>> computeAll(Iterable<ID> ids, FetchFunction<ID, RRC> fetchFunction);
@@ -53,6 +63,33 @@ public interface Cache<ID, RRC> {
         return putAll(mapToAdd).then(removeAll(mapToRemove));
     }
 
+    /**
+     * Replaces the value of each id in {@code incomingChanges} by the result of {@code mergeFunction}, caches backed by
+     * a concurrent map should override this to merge each entry atomically in place (e.g. {@code ConcurrentHashMap.compute()}),
+     * this default implementation reads all existing values then writes the merged ones back with {@link #updateAll(Map, Map)}.
+     * <p>
+     * {@code mergeFunction} may be called while holding a lock on the entry, it must be fast and must not access the cache.
+     */
+    default Mono<?> mergeAll(Map<ID, RRC> incomingChanges, MergeFunction<ID, RRC> mergeFunction) {
+        return getAll(incomingChanges.keySet())
+                .flatMap(existingCacheItems -> {
+                    final Map<ID, RRC> mapToAdd = newHashMap(incomingChanges.size());
+                    final Map<ID, RRC> mapToRemove = new HashMap<>();
+
+                    incomingChanges.forEach((id, incomingValue) -> {
+                        final var existingValue = existingCacheItems.get(id);
+                        final var mergedValue = mergeFunction.merge(id, existingValue, incomingValue);
+                        if (mergedValue != null) {
+                            mapToAdd.put(id, mergedValue);
+                        } else if (existingValue != null) {
+                            mapToRemove.put(id, existingValue);
+                        }
+                    });
+
+                    return updateAll(mapToAdd, mapToRemove);
+                });
+    }
+
     static <ID, RRC> Cache<ID, RRC> adapterCache(
             Function<Iterable<ID>, Mono<Map<ID, RRC>>> getAll,
             BiFunction<Iterable<ID>, FetchFunction<ID, RRC>, Mono<Map<ID, RRC>>> computeAll,
@@ -69,6 +106,17 @@ public interface Cache<ID, RRC> {
             Function<Map<ID, RRC>, Mono<?>> removeAll,
             BiFunction<Map<ID, RRC>, Map<ID, RRC>, Mono<?>> updateAll) {
 
+        return adapterCache(getAll, computeAll, putAll, removeAll, updateAll, null);
+    }
+
+    static <ID, RRC> Cache<ID, RRC> adapterCache(
+            Function<Iterable<ID>, Mono<Map<ID, RRC>>> getAll,
+            BiFunction<Iterable<ID>, FetchFunction<ID, RRC>, Mono<Map<ID, RRC>>> computeAll,
+            Function<Map<ID, RRC>, Mono<?>> putAll,
+            Function<Map<ID, RRC>, Mono<?>> removeAll,
+            BiFunction<Map<ID, RRC>, Map<ID, RRC>, Mono<?>> updateAll,
+            BiFunction<Map<ID, RRC>, MergeFunction<ID, RRC>, Mono<?>> mergeAll) {
+
         return new Cache<>() {
 
             @Override
@@ -97,6 +145,13 @@ public interface Cache<ID, RRC> {
                         .orElse(Cache.super::updateAll)
                         .apply(mapToAdd, mapToRemove);
             }
+
+            @Override
+            public Mono<?> mergeAll(Map<ID, RRC> incomingChanges, MergeFunction<ID, RRC> mergeFunction) {
+                return ofNullable(mergeAll)
+                        .orElse(Cache.super::mergeAll)
+                        .apply(incomingChanges, mergeFunction);
+            }
         };
     }
 
@@ -106,7 +161,8 @@ public interface Cache<ID, RRC> {
                 emptyOr(delegateCache::computeAll),
                 emptyMapOr(delegateCache::putAll),
                 emptyMapOr(delegateCache::removeAll),
-                emptyMapOr(delegateCache::updateAll)
+                emptyMapOr(delegateCache::updateAll),
+                emptyMergeOr(delegateCache::mergeAll)
         );
     }
 
@@ -120,45 +176,17 @@ public interface Cache<ID, RRC> {
 
         final var optimizedCache = optimizedCache(delegateCache);
 
+        // One pass through the delegate cache per update, each collection is merged in place of the existing one
+        // instead of reading all existing collections first then writing the merged ones back
         return adapterCache(
                 optimizedCache::getAll,
                 optimizedCache::computeAll,
-                applyMergeStrategy(
-                        optimizedCache,
-                        (existingCacheItems, incomingChanges) -> ctx.mapMerger().apply(existingCacheItems, incomingChanges),
-                        Cache::putAll),
-                applyMergeStrategy(
-                        optimizedCache,
-                        (cache, existingCacheItems, incomingChanges) ->
-                                then(subtractFromMap(incomingChanges, existingCacheItems, ctx.idResolver(), ctx.collectionFactory()),
-                                        updatedMap -> cache.updateAll(updatedMap, diff(existingCacheItems, updatedMap))))
-//                (incomingChangesToAdd, incomingChangesToRemove) -> {
-//                    delegateCache.getAll(Stream.concat(incomingChangesToAdd.keySet().stream(), incomingChangesToRemove.keySet().stream()).distinct().toList())
-//                            .flatMap(existingCacheItems -> )
-//
-//
-//                    return just(of());
-//                }
-        );
-    }
-
-    private static <ID, R, RC extends Collection<R>> Function<Map<ID, RC>, Mono<?>> applyMergeStrategy(
-            Cache<ID, RC> delegateCache,
-            MergeStrategy<ID, RC> mergeStrategy,
-            BiFunction<Cache<ID, RC>, Map<ID, RC>, Mono<?>> cacheUpdater) {
-
-        return applyMergeStrategy(
-                delegateCache,
-                (cache, existingCacheItems, incomingChanges) ->
-                        cacheUpdater.apply(cache, mergeStrategy.merge(existingCacheItems, incomingChanges)));
-    }
-
-    private static <ID, R, RC extends Collection<R>> Function<Map<ID, RC>, Mono<?>> applyMergeStrategy(
-            Cache<ID, RC> delegateCache,
-            CacheUpdater<ID, RC> cacheUpdater) {
-
-        return incomingChanges -> isEmpty(incomingChanges) ? just(of()) : delegateCache.getAll(incomingChanges.keySet())
-                .flatMap(existingCacheItems -> cacheUpdater.updateCache(delegateCache, existingCacheItems, incomingChanges));
+                incomingChanges -> optimizedCache.mergeAll(incomingChanges,
+                        (id, existingItems, incomingItems) -> ctx.mapMerger().apply(existingItems != null ? of(id, existingItems) : of(), of(id, incomingItems)).get(id)),
+                incomingChanges -> optimizedCache.mergeAll(incomingChanges,
+                        (id, existingItems, itemsToRemove) -> existingItems != null ? subtractFromMap(of(id, itemsToRemove), of(id, existingItems), ctx.idResolver(), ctx.collectionFactory()).get(id) : null),
+                null,
+                optimizedCache::mergeAll);
     }
 
     private static <ID, RRC> Function<Iterable<ID>, Mono<Map<ID, RRC>>> emptyOr(Function<Iterable<ID>, Mono<Map<ID, RRC>>> mappingFunction) {
@@ -178,4 +206,8 @@ public interface Cache<ID, RRC> {
     private static <ID, RRC> BiFunction<Map<ID, RRC>, Map<ID, RRC>, Mono<?>> emptyMapOr(BiFunction<Map<ID, RRC>, Map<ID, RRC>, Mono<?>> mappingFunction) {
         return (map1, map2) -> isEmpty(map1) && isEmpty(map2) ? just(of()) : mappingFunction.apply(nullToEmptyMap(map1), nullToEmptyMap(map2));
     }
+
+    private static <ID, RRC> BiFunction<Map<ID, RRC>, MergeFunction<ID, RRC>, Mono<?>> emptyMergeOr(BiFunction<Map<ID, RRC>, MergeFunction<ID, RRC>, Mono<?>> mergeFunction) {
+        return (map, fn) -> isEmpty(map) ? just(of()) : mergeFunction.apply(map, fn);
+    }
 }
@@ -33,6 +33,16 @@ import static io.github.pellse.assembler.caching.ConcurrentCacheFactory.concurre
 
 public sealed interface CacheContext<ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> {
 
+    /**
+     * @return the id identifying a single cache entry value, i.e. the correlation id for one-to-one and the entity id for one-to-many
+     */
+    Function<R, ?> idResolver();
+
+    /**
+     * @return the cache key a value belongs to, i.e. the correlation id for both one-to-one and one-to-many
+     */
+    Function<R, ID> correlationIdResolver();
+
     IntFunction<Collector<R, ?, Map<ID, RRC>>> mapCollector();
 
     BiFunction<Map<ID, RRC>, Map<ID, RRC>, Map<ID, RRC>> mapMerger();
@@ -40,19 +50,27 @@ public sealed interface CacheContext<ID, R, RRC, CTX extends CacheContext<ID, R,
     CacheTransformer<ID, R, RRC, CTX> cacheTransformer();
 
     record OneToOneCacheContext<ID, R>(
+            Function<R, ID> idResolver,
             IntFunction<Collector<R, ?, Map<ID, R>>> mapCollector,
             BiFunction<Map<ID, R>, Map<ID, R>, Map<ID, R>> mapMerger,
             CacheTransformer<ID, R, R, OneToOneCacheContext<ID, R>> cacheTransformer) implements CacheContext<ID, R, R, OneToOneCacheContext<ID, R>> {
 
         OneToOneCacheContext(OneToOneContext<?, ?, ?, ID, R> ctx) {
-            this(ctx.mapCollector(),
+            this(ctx.idResolver(),
+                    ctx.mapCollector(),
                     ctx.mapMerger(),
                     cf -> cf);
         }
+
+        @Override
+        public Function<R, ID> correlationIdResolver() {
+            return idResolver;
+        }
     }
 
     record OneToManyCacheContext<ID, EID, R, RC extends Collection<R>>(
             Function<R, EID> idResolver,
+            Function<R, ID> correlationIdResolver,
             IntFunction<Collector<R, ?, Map<ID, RC>>> mapCollector,
             BiFunction<Map<ID, RC>, Map<ID, RC>, Map<ID, RC>> mapMerger,
             Comparator<R> idComparator,
@@ -61,6 +79,7 @@ public sealed interface CacheContext<ID, R, RRC, CTX extends CacheContext<ID, R,
 
         OneToManyCacheContext(OneToManyContext<?, ?, ?, ID, EID, R, RC> ctx) {
             this(ctx.idResolver(),
+                    ctx.innerIdResolver(),
                     ctx.mapCollector(),
                     ctx.mapMerger(),
                     ctx.idComparator(),
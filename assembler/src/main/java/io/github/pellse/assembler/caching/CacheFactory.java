@@ -26,26 +26,24 @@ import io.github.pellse.assembler.caching.CacheContext.OneToOneCacheContext;
 import io.github.pellse.util.collection.CollectionUtils;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
-import reactor.core.publisher.Sinks.Empty;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 import static io.github.pellse.assembler.QueryUtils.buildQueryFunction;
 import static io.github.pellse.assembler.RuleMapperSource.*;
 import static io.github.pellse.assembler.caching.Cache.*;
+import static io.github.pellse.assembler.caching.CacheFactory.NegativeCacheConfig.negativeCacheConfig;
 import static io.github.pellse.assembler.caching.DeferCacheFactory.defer;
 import static io.github.pellse.assembler.caching.SortByCacheFactory.sortBy;
 import static io.github.pellse.util.ObjectUtils.*;
 import static io.github.pellse.util.collection.CollectionUtils.*;
-import static io.github.pellse.util.reactive.ReactiveUtils.createSinkMap;
-import static io.github.pellse.util.reactive.ReactiveUtils.resolve;
 import static java.util.Arrays.stream;
-import static java.util.Optional.ofNullable;
+import static java.util.Objects.requireNonNull;
 import static java.util.function.Predicate.not;
 import static reactor.core.publisher.Flux.fromStream;
 import static reactor.core.publisher.Mono.just;
@@ -59,6 +57,28 @@ public interface CacheFactory<ID, R, RRC, CTX extends CacheContext<ID, R, RRC, C
     interface CacheTransformer<ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> extends Function<CacheFactory<ID, R, RRC, CTX>, CacheFactory<ID, R, RRC, CTX>> {
     }
 
+    record NegativeCacheConfig(Duration ttl, long maxSize, LongSupplier ticker) {
+
+        public NegativeCacheConfig {
+            requireNonNull(ttl, "ttl cannot be null");
+            if (ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("ttl must be positive: " + ttl);
+            }
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be greater than 0");
+            }
+            requireNonNull(ticker, "ticker cannot be null");
+        }
+
+        public static NegativeCacheConfig negativeCacheConfig(Duration ttl, long maxSize) {
+            return new NegativeCacheConfig(ttl, maxSize, System::nanoTime);
+        }
+
+        public NegativeCacheConfig withTicker(LongSupplier ticker) {
+            return new NegativeCacheConfig(ttl, maxSize, ticker);
+        }
+    }
+
     class QueryFunctionException extends Exception {
         QueryFunctionException(Throwable t) {
             super(null, t, true, false);
@@ -67,41 +87,18 @@ public interface CacheFactory<ID, R, RRC, CTX extends CacheContext<ID, R, RRC, C
 
     static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheFactory<ID, R, RRC, CTX> cache() {
 
-        final var delegateMap = new ConcurrentHashMap<ID, Sinks.One<RRC>>();
-
-        Function<Iterable<ID>, Mono<Map<ID, RRC>>> getAll = ids -> resolve(readAll(ids, delegateMap, Empty::asMono));
-
-        BiFunction<Iterable<ID>, FetchFunction<ID, RRC>, Mono<Map<ID, RRC>>> computeAll = (ids, fetchFunction) -> {
-
-            final var cachedEntitiesMap = readAll(ids, delegateMap, Empty::asMono);
-
-            final var missingIds = diff(ids, cachedEntitiesMap.keySet());
-            if (isEmpty(missingIds)) {
-                return resolve(cachedEntitiesMap);
-            }
-
-            final var sinkMap = also(createSinkMap(missingIds), delegateMap::putAll);
-
-            return fetchFunction.apply(missingIds)
-                    .doOnNext(resultMap -> sinkMap.forEach((id, sink) -> ofNullable(resultMap.get(id))
-                            .ifPresentOrElse(sink::tryEmitValue, () -> {
-                                delegateMap.remove(id);
-                                sink.tryEmitEmpty();
-                            })))
-                    .doOnError(e -> sinkMap.forEach((id, sink) -> {
-                        delegateMap.remove(id);
-                        sink.tryEmitError(e);
-                    }))
-                    .flatMap(__ -> resolve(mergeMaps(cachedEntitiesMap, transformMapValues(sinkMap, Empty::asMono))));
-        };
+        final var cache = new ShardedCache<ID, RRC>();
+        return __ -> cache;
+    }
 
-        Function<Map<ID, RRC>, Mono<?>> putAll = toMono(map -> also(createSinkMap(map.keySet()), delegateMap::putAll)
-                .forEach((id, sink) -> sink.tryEmitValue(map.get(id))));
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheFactory<ID, R, RRC, CTX> cache(Duration negativeCacheTtl, long maxNegativeCacheSize) {
+        return cache(negativeCacheConfig(negativeCacheTtl, maxNegativeCacheSize));
+    }
 
-        Function<Map<ID, RRC>, Mono<?>> removeAll = toMono(map -> also(map.keySet(), ids -> delegateMap.keySet().removeAll(ids))
-                .forEach(id -> ofNullable(delegateMap.get(id)).ifPresent(Empty::tryEmitEmpty)));
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheFactory<ID, R, RRC, CTX> cache(NegativeCacheConfig negativeCacheConfig) {
 
-        return cache(getAll, computeAll, putAll, removeAll);
+        final var cache = new ShardedCache<ID, RRC>(requireNonNull(negativeCacheConfig, "negativeCacheConfig cannot be null"));
+        return __ -> cache;
     }
 
     static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheFactory<ID, R, RRC, CTX> cache(
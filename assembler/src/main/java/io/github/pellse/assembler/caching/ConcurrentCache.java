@@ -16,52 +16,281 @@
 
 package io.github.pellse.assembler.caching;
 
+import io.github.pellse.concurrent.FairnessPolicy;
+import io.github.pellse.concurrent.LockMetricsListener;
 import io.github.pellse.concurrent.ReactiveGuard;
+import io.github.pellse.concurrent.ReactiveGuard.ReactiveWriteGuard;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
+import java.util.BitSet;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static io.github.pellse.assembler.caching.ConcurrentCache.ConcurrencyConfig.concurrencyConfig;
+import static io.github.pellse.concurrent.FairnessPolicy.READER_PREFERRED;
+import static io.github.pellse.concurrent.ReactiveGuard.withOptimisticRead;
+import static io.github.pellse.util.collection.CollectionUtils.asCollection;
+import static java.util.Objects.requireNonNull;
+import static reactor.core.publisher.Mono.defer;
 
 public interface ConcurrentCache<ID, RRC> extends Cache<ID, RRC> {
 
+    record ConcurrencyConfig(int stripes, boolean optimisticReads, FairnessPolicy fairnessPolicy, LockMetricsListener lockMetricsListener, Scheduler timeoutScheduler) {
+
+        public ConcurrencyConfig {
+            if (stripes < 1) {
+                throw new IllegalArgumentException("stripes must be greater than 0, was " + stripes);
+            }
+            requireNonNull(fairnessPolicy, "fairnessPolicy cannot be null");
+        }
+
+        public static ConcurrencyConfig concurrencyConfig() {
+            return new ConcurrencyConfig(1, false, READER_PREFERRED, null, null);
+        }
+
+        public ConcurrencyConfig withStripes(int stripes) {
+            return new ConcurrencyConfig(stripes, optimisticReads, fairnessPolicy, lockMetricsListener, timeoutScheduler);
+        }
+
+        public ConcurrencyConfig withOptimisticReads() {
+            return new ConcurrencyConfig(stripes, true, fairnessPolicy, lockMetricsListener, timeoutScheduler);
+        }
+
+        public ConcurrencyConfig withFairnessPolicy(FairnessPolicy fairnessPolicy) {
+            return new ConcurrencyConfig(stripes, optimisticReads, fairnessPolicy, lockMetricsListener, timeoutScheduler);
+        }
+
+        /**
+         * @param lockMetricsListener shared by all stripes, e.g. {@code LockMetrics.lockMetrics()}
+         */
+        public ConcurrencyConfig withLockMetrics(LockMetricsListener lockMetricsListener) {
+            return new ConcurrencyConfig(stripes, optimisticReads, fairnessPolicy, lockMetricsListener, timeoutScheduler);
+        }
+
+        public ConcurrencyConfig withTimeoutScheduler(Scheduler timeoutScheduler) {
+            return new ConcurrencyConfig(stripes, optimisticReads, fairnessPolicy, lockMetricsListener, timeoutScheduler);
+        }
+    }
+
     static <ID, RRC> ConcurrentCache<ID, RRC> concurrentCache(Cache<ID, RRC> delegateCache) {
-        return concurrentCache(delegateCache, null);
+        return concurrentCache(delegateCache, concurrencyConfig());
     }
 
     static <ID, RRC> ConcurrentCache<ID, RRC> concurrentCache(Cache<ID, RRC> delegateCache, Scheduler timeoutScheduler) {
+        return concurrentCache(delegateCache, concurrencyConfig().withTimeoutScheduler(timeoutScheduler));
+    }
+
+    static <ID, RRC> ConcurrentCache<ID, RRC> concurrentCache(Cache<ID, RRC> delegateCache, int stripes) {
+        return concurrentCache(delegateCache, stripes, null);
+    }
+
+    static <ID, RRC> ConcurrentCache<ID, RRC> concurrentCache(Cache<ID, RRC> delegateCache, int stripes, Scheduler timeoutScheduler) {
+        return concurrentCache(delegateCache, concurrencyConfig().withStripes(stripes).withTimeoutScheduler(timeoutScheduler));
+    }
+
+    static <ID, RRC> ConcurrentCache<ID, RRC> concurrentCache(Cache<ID, RRC> delegateCache, ConcurrencyConfig config) {
 
         if (delegateCache instanceof ConcurrentCache<ID, RRC> concurrentCache) {
             return concurrentCache;
         }
 
-        final var reactiveGuard = ReactiveGuard.create(timeoutScheduler);
+        return config.stripes() == 1 ? singleGuardCache(delegateCache, config) : stripedCache(delegateCache, config);
+    }
+
+    private static <ID, RRC> ConcurrentCache<ID, RRC> singleGuardCache(Cache<ID, RRC> delegateCache, ConcurrencyConfig config) {
+
+        final var reactiveGuard = ReactiveGuard.create(config.timeoutScheduler(), config.fairnessPolicy(), config.lockMetricsListener());
 
         return new ConcurrentCache<>() {
 
             @Override
             public Mono<Map<ID, RRC>> getAll(Iterable<ID> ids) {
-                return reactiveGuard.withReadLock(delegateCache.getAll(ids), Map::of);
+                return config.optimisticReads()
+                        ? reactiveGuard.withOptimisticReadLock(() -> delegateCache.getAll(ids), Map::of)
+                        : reactiveGuard.withReadLock(() -> delegateCache.getAll(ids), Map::of);
             }
 
             @Override
             public Mono<Map<ID, RRC>> computeAll(Iterable<ID> ids, FetchFunction<ID, RRC> fetchFunction) {
+                if (!config.optimisticReads()) {
+                    return computeAllWithReadLock(ids, fetchFunction);
+                }
+
+                return allHitsOrElse(
+                        reactiveGuard.withOptimisticReadLock(() -> delegateCache.getAll(ids), Map::of),
+                        ids,
+                        defer(() -> computeAllWithReadLock(ids, fetchFunction)));
+            }
+
+            @Override
+            public Mono<?> putAll(Map<ID, RRC> map) {
+                return reactiveGuard.withLock(() -> delegateCache.putAll(map));
+            }
+
+            @Override
+            public Mono<?> removeAll(Map<ID, RRC> map) {
+                return reactiveGuard.withLock(() -> delegateCache.removeAll(map));
+            }
+
+            @Override
+            public Mono<?> updateAll(Map<ID, RRC> mapToAdd, Map<ID, RRC> mapToRemove) {
+                return reactiveGuard.withLock(() -> delegateCache.updateAll(mapToAdd, mapToRemove));
+            }
+
+            @Override
+            public Mono<?> mergeAll(Map<ID, RRC> incomingChanges, MergeFunction<ID, RRC> mergeFunction) {
+                return reactiveGuard.withLock(() -> delegateCache.mergeAll(incomingChanges, mergeFunction));
+            }
+
+            private Mono<Map<ID, RRC>> computeAllWithReadLock(Iterable<ID> ids, FetchFunction<ID, RRC> fetchFunction) {
                 return reactiveGuard.withReadLock(writeGuard -> delegateCache.computeAll(ids, idsToFetch -> writeGuard.withLock(() -> fetchFunction.apply(idsToFetch))), Map::of);
             }
+        };
+    }
+
+    private static <ID, RRC> ConcurrentCache<ID, RRC> stripedCache(Cache<ID, RRC> delegateCache, ConcurrencyConfig config) {
+
+        final int stripes = config.stripes();
+
+        final var reactiveGuards = new ReactiveGuard[stripes];
+        for (int i = 0; i < stripes; i++) {
+            reactiveGuards[i] = ReactiveGuard.create(config.timeoutScheduler(), config.fairnessPolicy(), config.lockMetricsListener());
+        }
+
+        return new ConcurrentCache<>() {
+
+            @Override
+            public Mono<Map<ID, RRC>> getAll(Iterable<ID> ids) {
+                final var touchedStripes = stripesOf(ids, stripes);
+
+                final Supplier<Mono<Map<ID, RRC>>> getAll = () -> withReadLocks(reactiveGuards, touchedStripes, __ -> delegateCache.getAll(ids), Map::of);
+
+                return config.optimisticReads()
+                        ? withOptimisticRead(() -> delegateCache.getAll(ids), () -> tryOptimisticRead(reactiveGuards, touchedStripes), stamps -> validate(reactiveGuards, touchedStripes, stamps), getAll)
+                        : getAll.get();
+            }
+
+            @Override
+            public Mono<Map<ID, RRC>> computeAll(Iterable<ID> ids, FetchFunction<ID, RRC> fetchFunction) {
+                final var touchedStripes = stripesOf(ids, stripes);
+
+                final Supplier<Mono<Map<ID, RRC>>> computeAll = () -> withReadLocks(reactiveGuards, touchedStripes, writeGuard -> delegateCache.computeAll(ids, idsToFetch -> writeGuard.withLock(() -> fetchFunction.apply(idsToFetch))), Map::of);
+
+                if (!config.optimisticReads()) {
+                    return computeAll.get();
+                }
+
+                return allHitsOrElse(
+                        withOptimisticRead(() -> delegateCache.getAll(ids), () -> tryOptimisticRead(reactiveGuards, touchedStripes), stamps -> validate(reactiveGuards, touchedStripes, stamps), () -> withReadLocks(reactiveGuards, touchedStripes, __ -> delegateCache.getAll(ids), Map::of)),
+                        ids,
+                        defer(computeAll));
+            }
 
             @Override
             public Mono<?> putAll(Map<ID, RRC> map) {
-                return reactiveGuard.withLock(delegateCache.putAll(map));
+                return withLocks(reactiveGuards, stripesOf(map.keySet(), stripes), defer(() -> delegateCache.putAll(map)));
             }
 
             @Override
             public Mono<?> removeAll(Map<ID, RRC> map) {
-                return reactiveGuard.withLock(delegateCache.removeAll(map));
+                return withLocks(reactiveGuards, stripesOf(map.keySet(), stripes), defer(() -> delegateCache.removeAll(map)));
             }
 
             @Override
             public Mono<?> updateAll(Map<ID, RRC> mapToAdd, Map<ID, RRC> mapToRemove) {
-                return reactiveGuard.withLock(delegateCache.updateAll(mapToAdd, mapToRemove));
+                final var touchedStripes = stripesOf(mapToAdd.keySet(), stripes);
+                touchedStripes.or(stripesOf(mapToRemove.keySet(), stripes));
+
+                return withLocks(reactiveGuards, touchedStripes, defer(() -> delegateCache.updateAll(mapToAdd, mapToRemove)));
+            }
+
+            @Override
+            public Mono<?> mergeAll(Map<ID, RRC> incomingChanges, MergeFunction<ID, RRC> mergeFunction) {
+                return withLocks(reactiveGuards, stripesOf(incomingChanges.keySet(), stripes), defer(() -> delegateCache.mergeAll(incomingChanges, mergeFunction)));
             }
         };
     }
+
+    // Only cache hits can be served from an optimistic read, anything missing goes through the locking computeAll()
+    private static <ID, RRC> Mono<Map<ID, RRC>> allHitsOrElse(Mono<Map<ID, RRC>> optimisticRead, Iterable<ID> ids, Mono<Map<ID, RRC>> fallback) {
+        return optimisticRead
+                .filter(map -> map.keySet().containsAll(asCollection(ids)))
+                .switchIfEmpty(fallback);
+    }
+
+    private static long[] tryOptimisticRead(ReactiveGuard[] reactiveGuards, BitSet stripes) {
+        final var stamps = new long[reactiveGuards.length];
+        for (int stripe = stripes.nextSetBit(0); stripe >= 0; stripe = stripes.nextSetBit(stripe + 1)) {
+            if ((stamps[stripe] = reactiveGuards[stripe].tryOptimisticRead()) == 0) {
+                return null;
+            }
+        }
+        return stamps;
+    }
+
+    private static boolean validate(ReactiveGuard[] reactiveGuards, BitSet stripes, long[] stamps) {
+        for (int stripe = stripes.nextSetBit(0); stripe >= 0; stripe = stripes.nextSetBit(stripe + 1)) {
+            if (!reactiveGuards[stripe].validate(stamps[stripe])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the stripe {@code id} is locked under in a cache created with {@code concurrencyConfig().withStripes(stripes)}
+     */
+    static int stripeOf(Object id, int stripes) {
+        final int h = id.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), stripes);
+    }
+
+    private static <ID> BitSet stripesOf(Iterable<ID> ids, int stripes) {
+        final var stripeSet = new BitSet(stripes);
+        for (ID id : ids) {
+            stripeSet.set(stripeOf(id, stripes));
+        }
+        return stripeSet;
+    }
+
+    // Stripes are always locked in ascending order, so two operations sharing stripes can never wait on each other in a cycle
+    private static <T> Mono<T> withReadLocks(
+            ReactiveGuard[] reactiveGuards,
+            BitSet stripes,
+            Function<ReactiveWriteGuard<T>, Mono<T>> writeLockMonoFunction,
+            Supplier<T> defaultValueProvider) {
+
+        return withReadLocks(reactiveGuards, stripes, stripes.nextSetBit(0), writeLockMonoFunction, defaultValueProvider);
+    }
+
+    private static <T> Mono<T> withReadLocks(
+            ReactiveGuard[] reactiveGuards,
+            BitSet stripes,
+            int stripe,
+            Function<ReactiveWriteGuard<T>, Mono<T>> writeLockMonoFunction,
+            Supplier<T> defaultValueProvider) {
+
+        if (stripe < 0) {
+            return defer(() -> writeLockMonoFunction.apply(mono -> mono));
+        }
+
+        return reactiveGuards[stripe].withReadLock(
+                (ReactiveWriteGuard<T> writeGuard) -> withReadLocks(
+                        reactiveGuards,
+                        stripes,
+                        stripes.nextSetBit(stripe + 1),
+                        innerWriteGuard -> writeLockMonoFunction.apply(mono -> writeGuard.withLock(innerWriteGuard.withLock(mono))),
+                        defaultValueProvider),
+                defaultValueProvider);
+    }
+
+    private static <T> Mono<T> withLocks(ReactiveGuard[] reactiveGuards, BitSet stripes, Mono<T> mono) {
+        return withLocks(reactiveGuards, stripes, stripes.nextSetBit(0), mono);
+    }
+
+    private static <T> Mono<T> withLocks(ReactiveGuard[] reactiveGuards, BitSet stripes, int stripe, Mono<T> mono) {
+        return stripe < 0 ? mono : reactiveGuards[stripe].withLock(withLocks(reactiveGuards, stripes, stripes.nextSetBit(stripe + 1), mono));
+    }
 }
@@ -17,17 +17,31 @@
 package io.github.pellse.assembler.caching;
 
 import io.github.pellse.assembler.caching.CacheFactory.CacheTransformer;
+import io.github.pellse.assembler.caching.ConcurrentCache.ConcurrencyConfig;
 import reactor.core.scheduler.Scheduler;
 
+import static io.github.pellse.assembler.caching.ConcurrentCache.ConcurrencyConfig.concurrencyConfig;
 import static io.github.pellse.assembler.caching.ConcurrentCache.concurrentCache;
 
 public interface ConcurrentCacheFactory {
 
     static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> concurrent() {
-        return concurrent(null);
+        return concurrent((Scheduler) null);
     }
 
     static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> concurrent(Scheduler timeoutScheduler) {
         return cacheFactory -> context -> concurrentCache(cacheFactory.create(context), timeoutScheduler);
     }
-}
\ No newline at end of file
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> concurrent(int stripes) {
+        return concurrent(stripes, null);
+    }
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> concurrent(int stripes, Scheduler timeoutScheduler) {
+        return concurrent(concurrencyConfig().withStripes(stripes).withTimeoutScheduler(timeoutScheduler));
+    }
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> concurrent(ConcurrencyConfig config) {
+        return cacheFactory -> context -> concurrentCache(cacheFactory.create(context), config);
+    }
+}
@@ -37,6 +37,7 @@ public interface DeferCacheFactory {
                 (ids, fetchFunction) -> Mono.defer(() -> delegateCache.computeAll(ids, fetchFunction)),
                 map -> Mono.defer(() -> delegateCache.putAll(map)),
                 map -> Mono.defer(() -> delegateCache.removeAll(map)),
-                (mapToAdd, mapToRemove) -> Mono.defer(() -> delegateCache.updateAll(mapToAdd, mapToRemove)));
+                (mapToAdd, mapToRemove) -> Mono.defer(() -> delegateCache.updateAll(mapToAdd, mapToRemove)),
+                (map, mergeFunction) -> Mono.defer(() -> delegateCache.mergeAll(map, mergeFunction)));
     }
 }
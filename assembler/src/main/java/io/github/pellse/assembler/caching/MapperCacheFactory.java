@@ -16,28 +16,85 @@
 
 package io.github.pellse.assembler.caching;
 
+import io.github.pellse.assembler.caching.Cache.MergeFunction;
 import io.github.pellse.assembler.caching.CacheFactory.CacheTransformer;
 
+import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 import static io.github.pellse.assembler.caching.Cache.adapterCache;
+import static io.github.pellse.assembler.caching.MapperCacheFactory.MappingMode.COPY;
 import static io.github.pellse.util.ObjectUtils.then;
 import static io.github.pellse.util.collection.CollectionUtils.transformMapValues;
+import static io.github.pellse.util.collection.CollectionUtils.transformMapValuesInPlace;
+import static io.github.pellse.util.collection.CollectionUtils.transformMapValuesOnChange;
 
 public interface MapperCacheFactory {
 
+    /**
+     * How mapped values are written back into the maps handed to the delegate cache
+     */
+    enum MappingMode {
+        /**
+         * Always allocates a new map, the mapping function is applied to every value
+         */
+        COPY,
+        /**
+         * Only allocates a new map when the mapping function returns a different instance for at least one value,
+         * meant for mapping functions that return their input when it is already mapped (i.e. idempotent)
+         */
+        COPY_ON_CHANGE,
+        /**
+         * Same as {@link #COPY_ON_CHANGE} except that maps returned by the fetch function of
+         * {@link Cache#computeAll(Iterable, Cache.FetchFunction)}, which are owned by the assembler pipeline,
+         * are transformed in place
+         */
+        IN_PLACE
+    }
+
     static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> mapper(Function<CTX, BiFunction<ID, RRC, RRC>> mappingFunction) {
-        return cacheFactory -> mapper(cacheFactory, mappingFunction);
+        return mapper(mappingFunction, COPY);
+    }
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> mapper(Function<CTX, BiFunction<ID, RRC, RRC>> mappingFunction, MappingMode mappingMode) {
+        return cacheFactory -> mapper(cacheFactory, mappingFunction, mappingMode);
     }
 
     static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheFactory<ID, R, RRC, CTX> mapper(CacheFactory<ID, R, RRC, CTX> cacheFactory, Function<CTX, BiFunction<ID, RRC, RRC>> mappingFunction) {
-        return context -> then(cacheFactory.create(context), delegateCache -> adapterCache(
-                delegateCache::getAll,
-                (ids, fetchFunction) -> delegateCache.computeAll(ids, idList -> fetchFunction.apply(idList).map(m -> transformMapValues(m, mappingFunction.apply(context)))),
-                map -> delegateCache.putAll(transformMapValues(map, mappingFunction.apply(context))),
-                delegateCache::removeAll,
-                (mapToAdd, mapToRemove) -> delegateCache.updateAll(transformMapValues(mapToAdd, mappingFunction.apply(context)), mapToRemove)
-        ));
+        return mapper(cacheFactory, mappingFunction, COPY);
+    }
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheFactory<ID, R, RRC, CTX> mapper(CacheFactory<ID, R, RRC, CTX> cacheFactory, Function<CTX, BiFunction<ID, RRC, RRC>> mappingFunction, MappingMode mappingMode) {
+        return context -> {
+            final var contextMappingFunction = mappingFunction.apply(context);
+
+            final UnaryOperator<Map<ID, RRC>> fetchedMapTransformer = switch (mappingMode) {
+                case COPY -> map -> transformMapValues(map, contextMappingFunction);
+                case COPY_ON_CHANGE -> map -> transformMapValuesOnChange(map, contextMappingFunction);
+                case IN_PLACE -> map -> transformMapValuesInPlace(map, contextMappingFunction);
+            };
+
+            final UnaryOperator<Map<ID, RRC>> mapTransformer = mappingMode == COPY
+                    ? map -> transformMapValues(map, contextMappingFunction)
+                    : map -> transformMapValuesOnChange(map, contextMappingFunction);
+
+            return then(cacheFactory.create(context), delegateCache -> adapterCache(
+                    delegateCache::getAll,
+                    (ids, fetchFunction) -> delegateCache.computeAll(ids, idList -> fetchFunction.apply(idList).map(fetchedMapTransformer)),
+                    map -> delegateCache.putAll(mapTransformer.apply(map)),
+                    delegateCache::removeAll,
+                    (mapToAdd, mapToRemove) -> delegateCache.updateAll(mapTransformer.apply(mapToAdd), mapToRemove),
+                    (map, mergeFunction) -> delegateCache.mergeAll(map, mapped(mergeFunction, contextMappingFunction))
+            ));
+        };
+    }
+
+    private static <ID, RRC> MergeFunction<ID, RRC> mapped(MergeFunction<ID, RRC> mergeFunction, BiFunction<ID, RRC, RRC> mappingFunction) {
+        return (id, existingValue, incomingValue) -> {
+            final var mergedValue = mergeFunction.merge(id, existingValue, incomingValue);
+            return mergedValue != null ? mappingFunction.apply(id, mergedValue) : null;
+        };
     }
 }
\ No newline at end of file
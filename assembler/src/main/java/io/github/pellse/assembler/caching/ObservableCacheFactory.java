@@ -16,10 +16,12 @@
 
 package io.github.pellse.assembler.caching;
 
+import io.github.pellse.assembler.caching.Cache.MergeFunction;
 import io.github.pellse.assembler.caching.CacheFactory.CacheTransformer;
 import reactor.core.publisher.Mono;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -44,11 +46,55 @@ public interface ObservableCacheFactory {
                     (ids, fetchFunction) -> cache.computeAll(ids, fetchFunction).transform(call(onComputeAll)),
                     map -> cache.putAll(map).transform(call(map, onPutAll)),
                     map -> cache.removeAll(map).transform(call(map, onRemoveAll)),
-                    (mapToAdd, mapToRemove) -> cache.updateAll(mapToAdd, mapToRemove).transform(call(mapToAdd, mapToRemove, onUpdateAll))
+                    (mapToAdd, mapToRemove) -> cache.updateAll(mapToAdd, mapToRemove).transform(call(mapToAdd, mapToRemove, onUpdateAll)),
+                    (map, mergeFunction) -> mergeAll(cache, map, mergeFunction, onPutAll, onRemoveAll)
             );
         };
     }
 
+    /**
+     * Observers are notified of the merged values split into puts and removals, not of the incoming changes,
+     * e.g. a one-to-many {@code removeAll()} is a merge that either puts the remaining children or removes the entry
+     */
+    private static <ID, RRC> Mono<?> mergeAll(
+            Cache<ID, RRC> cache,
+            Map<ID, RRC> incomingChanges,
+            MergeFunction<ID, RRC> mergeFunction,
+            Consumer<Map<ID, RRC>> onPutAll,
+            Consumer<Map<ID, RRC>> onRemoveAll) {
+
+        if (onPutAll == null && onRemoveAll == null) {
+            return cache.mergeAll(incomingChanges, mergeFunction);
+        }
+
+        return Mono.defer(() -> {
+            final Map<ID, RRC> mapToAdd = new ConcurrentHashMap<>();
+            final Map<ID, RRC> mapToRemove = new ConcurrentHashMap<>();
+
+            return cache.mergeAll(incomingChanges, (id, existingValue, incomingValue) -> {
+                        final var mergedValue = mergeFunction.merge(id, existingValue, incomingValue);
+                        if (mergedValue != null) {
+                            mapToAdd.put(id, mergedValue);
+                            mapToRemove.remove(id);
+                        } else {
+                            mapToAdd.remove(id);
+                            if (existingValue != null) {
+                                mapToRemove.put(id, existingValue);
+                            }
+                        }
+                        return mergedValue;
+                    })
+                    .doOnSuccess(__ -> {
+                        if (onPutAll != null && !mapToAdd.isEmpty()) {
+                            onPutAll.accept(mapToAdd);
+                        }
+                        if (onRemoveAll != null && !mapToRemove.isEmpty()) {
+                            onRemoveAll.accept(mapToRemove);
+                        }
+                    });
+        });
+    }
+
     static <T> Function<Mono<T>, Mono<T>> call(Consumer<T> consumer) {
         return mono -> consumer != null ? mono.doOnNext(consumer) : mono;
     }
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.caching;
+
+import io.github.pellse.assembler.caching.Cache.FetchFunction;
+import io.github.pellse.assembler.caching.CacheFactory.NegativeCacheConfig;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Runtime.getRuntime;
+import static java.util.HashMap.newHashMap;
+import static reactor.core.publisher.Mono.just;
+
+/**
+ * Default {@link Cache} implementation, completed values are stored as is and resolved synchronously,
+ * {@link Sinks.One} are only used to share loads still in flight between concurrent callers.
+ * <p>
+ * When a {@link NegativeCacheConfig} is provided, IDs the fetch function returned no value for are remembered
+ * until their TTL expires, so they are resolved as empty without calling the fetch function again. The oldest
+ * negative entries are evicted once {@link NegativeCacheConfig#maxSize()} is reached.
+ */
+final class ShardedCache<ID, RRC> implements Cache<ID, RRC> {
+
+    private static final int MAX_SHARDS = 64;
+
+    private final ConcurrentHashMap<ID, Object>[] shards;
+    private final int shardMask;
+
+    private final NegativeCacheConfig negativeCacheConfig;
+    private final Queue<Map.Entry<ID, Miss>> misses = new ConcurrentLinkedQueue<>();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong queuedMisses = new AtomicLong();
+
+    ShardedCache() {
+        this(getRuntime().availableProcessors() * 2);
+    }
+
+    ShardedCache(int concurrencyLevel) {
+        this(concurrencyLevel, null);
+    }
+
+    ShardedCache(NegativeCacheConfig negativeCacheConfig) {
+        this(getRuntime().availableProcessors() * 2, negativeCacheConfig);
+    }
+
+    @SuppressWarnings("unchecked")
+    ShardedCache(int concurrencyLevel, NegativeCacheConfig negativeCacheConfig) {
+        final int shardCount = Integer.highestOneBit(max(1, min(concurrencyLevel, MAX_SHARDS)) * 2 - 1);
+
+        shards = new ConcurrentHashMap[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        shardMask = shardCount - 1;
+        this.negativeCacheConfig = negativeCacheConfig;
+    }
+
+    @Override
+    public Mono<Map<ID, RRC>> getAll(Iterable<ID> ids) {
+
+        final Map<ID, RRC> cachedEntities = new HashMap<>();
+        final Map<ID, Pending<RRC>> pendingEntities = new HashMap<>();
+
+        readAll(ids, cachedEntities, pendingEntities::put, __ -> {});
+
+        return resolve(cachedEntities, pendingEntities, id -> getAll(List.of(id)).mapNotNull(map -> map.get(id)));
+    }
+
+    @Override
+    public Mono<Map<ID, RRC>> computeAll(Iterable<ID> ids, FetchFunction<ID, RRC> fetchFunction) {
+
+        final Map<ID, RRC> cachedEntities = new HashMap<>();
+        final Map<ID, Pending<RRC>> pendingEntities = new HashMap<>();
+        final Map<ID, Pending<RRC>> ownedEntities = new HashMap<>();
+
+        readAll(ids, cachedEntities, pendingEntities::put, id -> {
+            final var pending = new Pending<RRC>(Sinks.one());
+            final var existing = shard(id).putIfAbsent(id, pending);
+
+            if (existing == null) {
+                ownedEntities.put(id, pending);
+            } else {
+                dispatch(id, existing, cachedEntities, pendingEntities::put);
+            }
+        });
+
+        final Function<ID, Mono<RRC>> retryFunction = id -> computeAll(List.of(id), fetchFunction).mapNotNull(map -> map.get(id));
+
+        if (ownedEntities.isEmpty()) {
+            return resolve(cachedEntities, pendingEntities, retryFunction);
+        }
+
+        return fetchFunction.apply(ownedEntities.keySet())
+                .defaultIfEmpty(Map.of())
+                .doOnNext(resultMap -> ownedEntities.forEach((id, pending) -> {
+                    final var value = resultMap.get(id);
+                    if (value != null && shard(id).replace(id, pending, value)) {
+                        cachedEntities.put(id, value);
+                        pending.sink().tryEmitValue(value);
+                    } else if (value == null && removeOrRecordMiss(id, pending)) {
+                        pending.sink().tryEmitEmpty();
+                    } else {
+                        // Overwritten by putAll() or removeAll() while loading, the pending sink was completed with the newer state
+                        pendingEntities.put(id, pending);
+                    }
+                }))
+                .doOnError(e -> ownedEntities.forEach((id, pending) -> {
+                    shard(id).remove(id, pending);
+                    pending.sink().tryEmitError(e);
+                }))
+                .doOnCancel(() -> ownedEntities.forEach((id, pending) -> {
+                    shard(id).remove(id, pending);
+                    pending.sink().tryEmitError(LoadCancelledException.INSTANCE);
+                }))
+                .flatMap(__ -> resolve(cachedEntities, pendingEntities, retryFunction));
+    }
+
+    @Override
+    public Mono<?> putAll(Map<ID, RRC> map) {
+        map.forEach((id, value) -> {
+            if (value == null) {
+                remove(id);
+            } else {
+                final var previous = shard(id).put(id, value);
+                if (previous instanceof Pending<?> pending) {
+                    emitValue(pending, value);
+                } else if (previous instanceof Miss) {
+                    missCount.decrementAndGet();
+                }
+            }
+        });
+        return just(map);
+    }
+
+    @Override
+    public Mono<?> removeAll(Map<ID, RRC> map) {
+        map.keySet().forEach(this::remove);
+        return just(map);
+    }
+
+    /**
+     * Each entry is merged atomically with {@link ConcurrentHashMap#compute}, entries with a load still in flight
+     * go through the default read then write path so they are merged with the loaded value once available
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Mono<?> mergeAll(Map<ID, RRC> incomingChanges, MergeFunction<ID, RRC> mergeFunction) {
+
+        final Map<ID, RRC> pendingChanges = new HashMap<>();
+
+        incomingChanges.forEach((id, incomingValue) -> shard(id).compute(id, (__, existingValue) -> {
+            if (existingValue instanceof Pending<?>) {
+                pendingChanges.put(id, incomingValue);
+                return existingValue;
+            }
+            if (existingValue instanceof Miss) {
+                missCount.decrementAndGet();
+                return mergeFunction.merge(id, null, incomingValue);
+            }
+            return mergeFunction.merge(id, (RRC) existingValue, incomingValue);
+        }));
+
+        return pendingChanges.isEmpty() ? just(incomingChanges) : Cache.super.mergeAll(pendingChanges, mergeFunction);
+    }
+
+    private void remove(ID id) {
+        final var previous = shard(id).remove(id);
+        if (previous instanceof Pending<?> pending) {
+            pending.sink().tryEmitEmpty();
+        } else if (previous instanceof Miss) {
+            missCount.decrementAndGet();
+        }
+    }
+
+    private boolean removeOrRecordMiss(ID id, Pending<RRC> pending) {
+        if (negativeCacheConfig == null) {
+            return shard(id).remove(id, pending);
+        }
+
+        final var miss = new Miss(negativeCacheConfig.ticker().getAsLong() + negativeCacheConfig.ttl().toNanos());
+        if (!shard(id).replace(id, pending, miss)) {
+            return false;
+        }
+
+        misses.offer(Map.entry(id, miss));
+        if (queuedMisses.incrementAndGet() > 2 * negativeCacheConfig.maxSize()) {
+            purgeStaleMisses();
+        }
+        if (missCount.incrementAndGet() > negativeCacheConfig.maxSize()) {
+            evictMiss();
+        }
+        return true;
+    }
+
+    /**
+     * Markers dropped on read or replaced by putAll(), mergeAll() or removeAll() leave stale entries in the queue,
+     * those are skipped until a live marker is evicted
+     */
+    private void evictMiss() {
+        Map.Entry<ID, Miss> entry;
+        while ((entry = misses.poll()) != null) {
+            queuedMisses.decrementAndGet();
+            if (shard(entry.getKey()).remove(entry.getKey(), entry.getValue())) {
+                missCount.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void purgeStaleMisses() {
+        misses.removeIf(entry -> {
+            final boolean stale = shard(entry.getKey()).get(entry.getKey()) != entry.getValue();
+            if (stale) {
+                queuedMisses.decrementAndGet();
+            }
+            return stale;
+        });
+    }
+
+    private boolean isExpired(Miss miss) {
+        return negativeCacheConfig.ticker().getAsLong() - miss.expiresAt() >= 0;
+    }
+
+    private void readAll(Iterable<ID> ids, Map<ID, RRC> cachedEntities, BiConsumer<ID, Pending<RRC>> pendingConsumer, Consumer<ID> missingConsumer) {
+        for (ID id : ids) {
+            final var value = shard(id).get(id);
+            if (value instanceof Miss miss) {
+                if (isExpired(miss)) {
+                    if (shard(id).remove(id, miss)) {
+                        missCount.decrementAndGet();
+                    }
+                    missingConsumer.accept(id);
+                }
+            } else if (value != null) {
+                dispatch(id, value, cachedEntities, pendingConsumer);
+            } else {
+                missingConsumer.accept(id);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(ID id, Object value, Map<ID, RRC> cachedEntities, BiConsumer<ID, Pending<RRC>> pendingConsumer) {
+        if (value instanceof Pending<?> pending) {
+            pendingConsumer.accept(id, (Pending<RRC>) pending);
+        } else if (!(value instanceof Miss)) {
+            cachedEntities.put(id, (RRC) value);
+        }
+    }
+
+    private ConcurrentHashMap<ID, Object> shard(ID id) {
+        final int h = id.hashCode();
+        return shards[(h ^ (h >>> 16)) & shardMask];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <RRC> void emitValue(Pending<?> pending, RRC value) {
+        ((Pending<RRC>) pending).sink().tryEmitValue(value);
+    }
+
+    /**
+     * A pending load whose owner cancelled was never fetched, its waiters go through {@code retryFunction} instead of
+     * resolving it as missing
+     */
+    private static <ID, RRC> Mono<Map<ID, RRC>> resolve(Map<ID, RRC> cachedEntities, Map<ID, Pending<RRC>> pendingEntities, Function<ID, Mono<RRC>> retryFunction) {
+
+        if (pendingEntities.isEmpty()) {
+            return just(cachedEntities);
+        }
+
+        return Flux.fromIterable(pendingEntities.entrySet())
+                .flatMap(entry -> entry.getValue().sink().asMono()
+                        .onErrorResume(LoadCancelledException.class, __ -> retryFunction.apply(entry.getKey()))
+                        .map(value -> Map.entry(entry.getKey(), value)))
+                .collect(() -> newHashMap(cachedEntities.size() + pendingEntities.size()), (Map<ID, RRC> map, Map.Entry<ID, RRC> entry) -> map.put(entry.getKey(), entry.getValue()))
+                .doOnNext(map -> map.putAll(cachedEntities));
+    }
+
+    private record Pending<RRC>(Sinks.One<RRC> sink) {
+    }
+
+    private record Miss(long expiresAt) {
+    }
+
+    private static final class LoadCancelledException extends RuntimeException {
+
+        private static final LoadCancelledException INSTANCE = new LoadCancelledException();
+
+        private LoadCancelledException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pellse.assembler.caching;
+
+import io.github.pellse.assembler.caching.SnapshotCacheFactory.Snapshot;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.HashMap.newHashMap;
+
+/**
+ * Keeps track of the ids written to the delegate cache so its content can be read back for a snapshot,
+ * only ids are tracked, values are always read from the delegate cache so evicted entries drop out of the next snapshot.
+ */
+final class SnapshotCache<ID, RRC> implements Cache<ID, RRC> {
+
+    private final Cache<ID, RRC> delegateCache;
+
+    // Id -> sequence of the last write, an id found missing during a snapshot is only untracked if not written since
+    private final ConcurrentHashMap<ID, Long> trackedIds = new ConcurrentHashMap<>();
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    SnapshotCache(Cache<ID, RRC> delegateCache) {
+        this.delegateCache = delegateCache;
+    }
+
+    @Override
+    public Mono<Map<ID, RRC>> getAll(Iterable<ID> ids) {
+        return delegateCache.getAll(ids);
+    }
+
+    @Override
+    public Mono<Map<ID, RRC>> computeAll(Iterable<ID> ids, FetchFunction<ID, RRC> fetchFunction) {
+        // Only fetched entries are new to the delegate cache, cache hits don't pay for tracking
+        return delegateCache.computeAll(ids, idsToFetch -> fetchFunction.apply(idsToFetch).doOnNext(this::track));
+    }
+
+    @Override
+    public Mono<?> putAll(Map<ID, RRC> map) {
+        track(map);
+        return delegateCache.putAll(map);
+    }
+
+    @Override
+    public Mono<?> removeAll(Map<ID, RRC> map) {
+        return delegateCache.removeAll(map);
+    }
+
+    @Override
+    public Mono<?> updateAll(Map<ID, RRC> mapToAdd, Map<ID, RRC> mapToRemove) {
+        track(mapToAdd);
+        return delegateCache.updateAll(mapToAdd, mapToRemove);
+    }
+
+    @Override
+    public Mono<?> mergeAll(Map<ID, RRC> incomingChanges, MergeFunction<ID, RRC> mergeFunction) {
+        track(incomingChanges);
+        return delegateCache.mergeAll(incomingChanges, mergeFunction);
+    }
+
+    Mono<Snapshot<ID, RRC>> snapshot() {
+        return Mono.defer(() -> {
+            final var timestamp = Instant.now();
+            final var ids = new HashMap<>(trackedIds);
+
+            return delegateCache.getAll(ids.keySet())
+                    .map(entries -> {
+                        ids.forEach((id, sequence) -> {
+                            if (!entries.containsKey(id)) {
+                                trackedIds.remove(id, sequence);
+                            }
+                        });
+                        return new Snapshot<>(timestamp, entries);
+                    });
+        });
+    }
+
+    /**
+     * Only loads the entries not already in the delegate cache, so a background restore never overwrites
+     * more recent values written in the meantime (e.g. by a {@code streamTable()})
+     */
+    Mono<?> restore(Snapshot<ID, RRC> snapshot) {
+        final var entries = snapshot.entries();
+
+        return delegateCache.getAll(entries.keySet())
+                .flatMap(existingEntries -> {
+                    final Map<ID, RRC> missingEntries = newHashMap(entries.size());
+                    entries.forEach((id, value) -> {
+                        if (!existingEntries.containsKey(id)) {
+                            missingEntries.put(id, value);
+                        }
+                    });
+                    return putAll(missingEntries);
+                });
+    }
+
+    private void track(Map<ID, RRC> map) {
+        if (map == null || map.isEmpty()) {
+            return;
+        }
+        final var sequence = writeSequence.incrementAndGet();
+        map.keySet().forEach(id -> trackedIds.put(id, sequence));
+    }
+}
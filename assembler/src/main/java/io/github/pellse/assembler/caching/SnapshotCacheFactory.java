@@ -0,0 +1,208 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pellse.assembler.caching;
+
+import io.github.pellse.assembler.LifeCycleEventSource;
+import io.github.pellse.assembler.caching.CacheFactory.CacheTransformer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.*;
+import java.lang.System.Logger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.github.pellse.assembler.LifeCycleEventSource.concurrentLifeCycleEventListener;
+import static io.github.pellse.assembler.LifeCycleEventSource.lifeCycleEventAdapter;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.lang.System.getLogger;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.HashMap.newHashMap;
+import static java.util.Objects.requireNonNull;
+import static reactor.core.scheduler.Schedulers.boundedElastic;
+import static reactor.core.scheduler.Schedulers.isInNonBlockingThread;
+
+/**
+ * Periodically writes the content of a cache to a local file and bulk loads it back when the cache is created,
+ * so a restarted process doesn't have to fetch everything again from downstream services.
+ * <p>
+ * Must be declared before a {@code streamTable()} for the events it applies to be part of the snapshot,
+ * the data source of that {@code streamTable()} can be replayed from {@link #snapshotTimestamp(Path)}.
+ */
+public interface SnapshotCacheFactory {
+
+    int SNAPSHOT_MAGIC_NUMBER = 0x41534D53; // "ASMS"
+    int SNAPSHOT_FORMAT_VERSION = 1;
+
+    Logger logger = getLogger(SnapshotCacheFactory.class.getName());
+
+    /**
+     * @param timestamp taken before the cache content was read, every change applied after that point is either
+     *                  part of the snapshot or needs to be replayed
+     */
+    record Snapshot<ID, RRC>(Instant timestamp, Map<ID, RRC> entries) {
+    }
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> snapshot(
+            Path snapshotFile,
+            SnapshotCodec<ID> idCodec,
+            SnapshotCodec<RRC> valueCodec,
+            Duration snapshotInterval,
+            LifeCycleEventSource lifeCycleEventSource) {
+
+        return snapshot(snapshotFile, idCodec, valueCodec, snapshotInterval, false, lifeCycleEventSource);
+    }
+
+    /**
+     * @param restoreInBackground  when false the snapshot is read and loaded before the cache is returned, blocking the thread
+     *                             creating the cache (i.e. the one building the assembler), otherwise the cache starts empty
+     *                             and entries are loaded on {@code boundedElastic()}, a cache created on a non-blocking
+     *                             Reactor thread always restores in the background
+     * @param lifeCycleEventSource periodic snapshots start and stop with this source, a last snapshot is written on stop
+     *                             and the stop handler waits for it unless running on a non-blocking Reactor thread,
+     *                             required so the snapshot timer never outlives the assembler
+     */
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> snapshot(
+            Path snapshotFile,
+            SnapshotCodec<ID> idCodec,
+            SnapshotCodec<RRC> valueCodec,
+            Duration snapshotInterval,
+            boolean restoreInBackground,
+            LifeCycleEventSource lifeCycleEventSource) {
+
+        requireNonNull(snapshotFile, "snapshotFile cannot be null");
+        requireNonNull(idCodec, "idCodec cannot be null");
+        requireNonNull(valueCodec, "valueCodec cannot be null");
+        requireNonNull(snapshotInterval, "snapshotInterval cannot be null");
+        requireNonNull(lifeCycleEventSource, "lifeCycleEventSource cannot be null");
+
+        return cacheFactory -> cacheContext -> {
+
+            final var cache = new SnapshotCache<>(cacheFactory.create(cacheContext));
+
+            final var restore = Mono.fromCallable(() -> readSnapshot(snapshotFile, idCodec, valueCodec).orElse(null))
+                    .flatMap(cache::restore)
+                    .doOnError(e -> logger.log(WARNING, "Unable to restore cache snapshot " + snapshotFile + ", starting with an empty cache", e))
+                    .onErrorComplete();
+
+            if (restoreInBackground || isInNonBlockingThread()) {
+                restore.subscribeOn(boundedElastic()).subscribe();
+            } else {
+                restore.block();
+            }
+
+            final var saveSnapshot = cache.snapshot()
+                    .publishOn(boundedElastic())
+                    .doOnNext(snapshot -> writeSnapshot(snapshotFile, snapshot, idCodec, valueCodec))
+                    .doOnError(e -> logger.log(WARNING, "Unable to write cache snapshot " + snapshotFile, e))
+                    .onErrorComplete();
+
+            final var periodicSnapshots = Flux.interval(snapshotInterval, snapshotInterval)
+                    .onBackpressureDrop()
+                    .concatMap(__ -> saveSnapshot);
+
+            lifeCycleEventSource.addLifeCycleEventListener(concurrentLifeCycleEventListener(lifeCycleEventAdapter(periodicSnapshots, Flux::subscribe, (Disposable disposable) -> {
+                disposable.dispose();
+                if (isInNonBlockingThread()) {
+                    saveSnapshot.subscribe();
+                } else {
+                    saveSnapshot.block();
+                }
+            })));
+
+            return cache;
+        };
+    }
+
+    static Optional<Instant> snapshotTimestamp(Path snapshotFile) {
+        if (!Files.exists(snapshotFile)) {
+            return Optional.empty();
+        }
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            return Optional.of(readHeader(in, snapshotFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static <ID, RRC> Optional<Snapshot<ID, RRC>> readSnapshot(Path snapshotFile, SnapshotCodec<ID> idCodec, SnapshotCodec<RRC> valueCodec) {
+        if (!Files.exists(snapshotFile)) {
+            return Optional.empty();
+        }
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            final var timestamp = readHeader(in, snapshotFile);
+            final int size = in.readInt();
+
+            final Map<ID, RRC> entries = newHashMap(size);
+            for (int i = 0; i < size; i++) {
+                entries.put(idCodec.decode(in), valueCodec.decode(in));
+            }
+            return Optional.of(new Snapshot<>(timestamp, entries));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The snapshot is written to a temporary file in the same directory then atomically moved over {@code snapshotFile},
+     * readers never observe a partially written snapshot
+     */
+    static <ID, RRC> void writeSnapshot(Path snapshotFile, Snapshot<ID, RRC> snapshot, SnapshotCodec<ID> idCodec, SnapshotCodec<RRC> valueCodec) {
+        final var directory = snapshotFile.toAbsolutePath().getParent();
+
+        try {
+            Files.createDirectories(directory);
+            final var tempFile = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+
+            try {
+                try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                    out.writeInt(SNAPSHOT_MAGIC_NUMBER);
+                    out.writeInt(SNAPSHOT_FORMAT_VERSION);
+                    out.writeLong(snapshot.timestamp().toEpochMilli());
+                    out.writeInt(snapshot.entries().size());
+
+                    for (var entry : snapshot.entries().entrySet()) {
+                        idCodec.encode(entry.getKey(), out);
+                        valueCodec.encode(entry.getValue(), out);
+                    }
+                }
+                Files.move(tempFile, snapshotFile, ATOMIC_MOVE, REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Instant readHeader(DataInput in, Path snapshotFile) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC_NUMBER) {
+            throw new IOException(snapshotFile + " is not a cache snapshot");
+        }
+        final int version = in.readInt();
+        if (version != SNAPSHOT_FORMAT_VERSION) {
+            throw new IOException("Unsupported cache snapshot version " + version + " in " + snapshotFile);
+        }
+        return Instant.ofEpochMilli(in.readLong());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pellse.assembler.caching;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Binary encoding of the ids and values written to a cache snapshot, see {@link SnapshotCacheFactory}
+ */
+public interface SnapshotCodec<T> {
+
+    @FunctionalInterface
+    interface Encoder<T> {
+        void encode(T value, DataOutput out) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Decoder<T> {
+        T decode(DataInput in) throws IOException;
+    }
+
+    void encode(T value, DataOutput out) throws IOException;
+
+    T decode(DataInput in) throws IOException;
+
+    static <T> SnapshotCodec<T> snapshotCodec(Encoder<T> encoder, Decoder<T> decoder) {
+
+        return new SnapshotCodec<>() {
+
+            @Override
+            public void encode(T value, DataOutput out) throws IOException {
+                encoder.encode(value, out);
+            }
+
+            @Override
+            public T decode(DataInput in) throws IOException {
+                return decoder.decode(in);
+            }
+        };
+    }
+
+    static SnapshotCodec<Integer> intCodec() {
+        return snapshotCodec((value, out) -> out.writeInt(value), DataInput::readInt);
+    }
+
+    static SnapshotCodec<Long> longCodec() {
+        return snapshotCodec((value, out) -> out.writeLong(value), DataInput::readLong);
+    }
+
+    /**
+     * Length prefixed UTF-8, unlike {@link DataOutput#writeUTF(String)} strings are not limited to 64KB
+     */
+    static SnapshotCodec<String> stringCodec() {
+        return snapshotCodec(
+                (value, out) -> {
+                    final var bytes = value.getBytes(UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                },
+                in -> {
+                    final var bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    return new String(bytes, UTF_8);
+                });
+    }
+
+    static <E> SnapshotCodec<List<E>> listCodec(SnapshotCodec<E> elementCodec) {
+        return collectionCodec(elementCodec, ArrayList::new);
+    }
+
+    static <E, C extends Collection<E>> SnapshotCodec<C> collectionCodec(SnapshotCodec<E> elementCodec, IntFunction<C> collectionFactory) {
+        return snapshotCodec(
+                (collection, out) -> {
+                    out.writeInt(collection.size());
+                    for (E element : collection) {
+                        elementCodec.encode(element, out);
+                    }
+                },
+                in -> {
+                    final int size = in.readInt();
+                    final var collection = collectionFactory.apply(size);
+                    for (int i = 0; i < size; i++) {
+                        collection.add(elementCodec.decode(in));
+                    }
+                    return collection;
+                });
+    }
+}
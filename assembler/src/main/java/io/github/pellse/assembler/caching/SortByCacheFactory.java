@@ -18,11 +18,15 @@ package io.github.pellse.assembler.caching;
 
 import io.github.pellse.assembler.caching.CacheContext.OneToManyCacheContext;
 import io.github.pellse.assembler.caching.CacheFactory.CacheTransformer;
+import io.github.pellse.util.collection.SortedArrayList;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import static io.github.pellse.assembler.caching.MapperCacheFactory.MappingMode.IN_PLACE;
 import static io.github.pellse.assembler.caching.MapperCacheFactory.mapper;
 import static java.util.stream.Collectors.toCollection;
 
@@ -41,10 +45,25 @@ public interface SortByCacheFactory {
     }
 
     private static <ID, EID, R, RC extends Collection<R>> CacheFactory<ID, R, RC, OneToManyCacheContext<ID, EID, R, RC>> sortBy(CacheFactory<ID, R, RC, OneToManyCacheContext<ID, EID, R, RC>> cacheFactory, Function<OneToManyCacheContext<ID, EID, R, RC>, Comparator<R>> comparatorProvider) {
-        return mapper(cacheFactory,
-                cacheContext ->
-                        (__, coll) -> coll.stream()
-                                .sorted(comparatorProvider.apply(cacheContext))
-                                .collect(toCollection(cacheContext.collectionFactory())));
+        return cacheContext -> {
+            final BiFunction<ID, RC, RC> sortFunction = sortFunction(comparatorProvider.apply(cacheContext), cacheContext.collectionFactory());
+            return mapper(cacheFactory, __ -> sortFunction, IN_PLACE).create(cacheContext);
+        };
     }
-}
\ No newline at end of file
+
+    /**
+     * When the collection type allows it, collections are stored as {@link SortedArrayList}, they are then kept sorted
+     * by binary insertion when merged with incoming changes and don't need to be sorted again here
+     */
+    @SuppressWarnings("unchecked")
+    private static <ID, R, RC extends Collection<R>> BiFunction<ID, RC, RC> sortFunction(Comparator<R> comparator, Supplier<RC> collectionFactory) {
+
+        if (!collectionFactory.get().getClass().isAssignableFrom(SortedArrayList.class)) {
+            return (__, coll) -> coll.stream()
+                    .sorted(comparator)
+                    .collect(toCollection(collectionFactory));
+        }
+
+        return (__, coll) -> coll instanceof SortedArrayList<R> sortedColl && sortedColl.comparator() == comparator && sortedColl.isSorted() ? coll : (RC) new SortedArrayList<>(comparator, coll);
+    }
+}
@@ -23,28 +23,39 @@ import io.github.pellse.assembler.WindowingStrategy;
 import io.github.pellse.assembler.caching.CacheEvent.Updated;
 import io.github.pellse.assembler.caching.CacheFactory.CacheTransformer;
 import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
 import java.lang.System.Logger;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.*;
 import java.util.stream.Collector;
+import java.util.stream.Collectors;
 
 import static io.github.pellse.assembler.ErrorHandler.OnErrorContinue.onErrorContinue;
 import static io.github.pellse.assembler.LifeCycleEventSource.concurrentLifeCycleEventListener;
 import static io.github.pellse.assembler.LifeCycleEventSource.lifeCycleEventAdapter;
 import static io.github.pellse.assembler.caching.CacheEvent.toCacheEvent;
+import static io.github.pellse.assembler.caching.ConcurrentCache.stripeOf;
+import static io.github.pellse.assembler.caching.StreamTableFactory.OverflowPolicy.BLOCK;
+import static io.github.pellse.assembler.caching.StreamTableMetrics.streamTableMetrics;
 import static io.github.pellse.util.collection.CollectionUtils.isEmpty;
 import static io.github.pellse.util.reactive.ReactiveUtils.publishFluxOn;
 import static java.lang.System.Logger.Level.WARNING;
 import static java.lang.System.getLogger;
 import static java.util.Objects.requireNonNull;
 import static java.util.Objects.requireNonNullElse;
+import static java.util.Objects.requireNonNullElseGet;
 import static java.util.Optional.ofNullable;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.collectingAndThen;
 import static java.util.stream.Collectors.partitioningBy;
+import static reactor.core.scheduler.Schedulers.parallel;
+import static reactor.util.concurrent.Queues.SMALL_BUFFER_SIZE;
 
 public interface StreamTableFactory {
 
@@ -52,6 +63,47 @@ public interface StreamTableFactory {
 
     Logger logger = getLogger(StreamTableFactory.class.getName());
 
+    enum OverflowPolicy {
+        /**
+         * Stops requesting from the data source until the buffer drains, a data source not honoring
+         * backpressure will fail with an overflow error
+         */
+        BLOCK,
+        /**
+         * Discards the oldest buffered event, the cache may then miss that change until the next event for the same id
+         */
+        DROP_OLDEST,
+        /**
+         * Discards the oldest buffered event and removes its whole cache entry (i.e. the entire collection of its
+         * correlation id for one-to-many), so that the next read for that entry falls back to the fetch function
+         * instead of returning stale or incomplete data
+         */
+        INVALIDATE
+    }
+
+    record EventBuffer(int maxSize, OverflowPolicy overflowPolicy, StreamTableMetrics metrics) {
+
+        public EventBuffer {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("maxSize must be greater than 0, was " + maxSize);
+            }
+            overflowPolicy = requireNonNullElse(overflowPolicy, BLOCK);
+            metrics = requireNonNullElseGet(metrics, StreamTableMetrics::streamTableMetrics);
+        }
+
+        public static EventBuffer eventBuffer(int maxSize) {
+            return eventBuffer(maxSize, BLOCK);
+        }
+
+        public static EventBuffer eventBuffer(int maxSize, OverflowPolicy overflowPolicy) {
+            return eventBuffer(maxSize, overflowPolicy, streamTableMetrics());
+        }
+
+        public static EventBuffer eventBuffer(int maxSize, OverflowPolicy overflowPolicy, StreamTableMetrics metrics) {
+            return new EventBuffer(maxSize, overflowPolicy, metrics);
+        }
+    }
+
     static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> streamTable(Supplier<Flux<R>> dataSourceSupplier) {
         return streamTable(dataSourceSupplier.get());
     }
@@ -84,20 +136,78 @@ public interface StreamTableFactory {
             Scheduler scheduler,
             Function<CacheFactory<ID, R, RRC, CTX>, CacheFactory<ID, R, RRC, CTX>> cacheTransformer) {
 
+        return streamTable(dataSource, windowingStrategy, 1, null, errorHandler, lifeCycleEventSource, scheduler, cacheTransformer);
+    }
+
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>, U extends CacheEvent<R>> CacheTransformer<ID, R, RRC, CTX> streamTable(
+            Flux<U> dataSource,
+            WindowingStrategy<U> windowingStrategy,
+            int partitions,
+            Function<R, ?> partitionKeyExtractor,
+            ErrorHandler errorHandler,
+            LifeCycleEventSource lifeCycleEventSource,
+            Scheduler scheduler,
+            Function<CacheFactory<ID, R, RRC, CTX>, CacheFactory<ID, R, RRC, CTX>> cacheTransformer) {
+
+        return streamTable(dataSource, windowingStrategy, partitions, partitionKeyExtractor, null, errorHandler, lifeCycleEventSource, scheduler, cacheTransformer);
+    }
+
+    /**
+     * @param partitions             number of rails events are split into, each rail is windowed and written to the cache independently,
+     *                               events sharing the same partition key always go to the same rail and are applied in order
+     * @param partitionKeyExtractor  defaults to {@link CacheContext#correlationIdResolver()} when null, i.e. the cache key,
+     *                               so all events of a one-to-many collection go to the same rail, rails then line up with
+     *                               the stripes of a {@code concurrent()} cache configured with the same number of stripes
+     * @param eventBuffer            bounds the number of events received from the data source and not yet windowed,
+     *                               no buffer is added when null. When set, windows are collected and written to the cache
+     *                               one at a time (per rail), so besides the {@code maxSize} buffered events only the events
+     *                               requested by the windowing strategy for the window being filled and those of the cache
+     *                               update in progress are held in memory, these are not counted in
+     *                               {@link StreamTableMetrics#pendingEvents()}. Time based windowing strategies requesting
+     *                               unbounded demand (e.g. {@code window(Duration)}) bypass the buffer altogether
+     */
+    static <ID, R, RRC, CTX extends CacheContext<ID, R, RRC, CTX>, U extends CacheEvent<R>> CacheTransformer<ID, R, RRC, CTX> streamTable(
+            Flux<U> dataSource,
+            WindowingStrategy<U> windowingStrategy,
+            int partitions,
+            Function<R, ?> partitionKeyExtractor,
+            EventBuffer eventBuffer,
+            ErrorHandler errorHandler,
+            LifeCycleEventSource lifeCycleEventSource,
+            Scheduler scheduler,
+            Function<CacheFactory<ID, R, RRC, CTX>, CacheFactory<ID, R, RRC, CTX>> cacheTransformer) {
+
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be greater than 0, was " + partitions);
+        }
+
         return cacheFactory -> cacheContext -> {
 
             final var mapCollector = cacheContext.mapCollector();
+            final var idResolver = cacheContext.idResolver();
 
             final var cache = ofNullable(cacheTransformer)
                     .map(transformer -> transformer.apply(cacheFactory))
                     .orElseGet(() -> cacheContext.cacheTransformer().apply(cacheFactory))
                     .create(cacheContext);
 
-            final var cacheSourceFlux = requireNonNull(dataSource, "dataSource cannot be null")
+            final int concurrency = eventBuffer != null ? 1 : SMALL_BUFFER_SIZE;
+
+            final Function<Flux<U>, Flux<Map<Boolean, List<U>>>> windowCollector = flux -> flux
+                    .transform(requireNonNullElse(windowingStrategy, source -> source.window(MAX_WINDOW_SIZE)))
+                    .flatMap(window -> window.collect(lastEventPerId(idResolver)), concurrency);
+
+            final Function<Map<Boolean, List<U>>, Mono<?>> cacheUpdater = eventMap -> cache.updateAll(toMap(eventMap.get(true), mapCollector), toMap(eventMap.get(false), mapCollector));
+
+            // The whole entry of a dropped event is removed instead of only the event's value, for one-to-many a collection
+            // missing the dropped change would otherwise still be served as a cache hit
+            final var events = requireNonNull(dataSource, "dataSource cannot be null")
                     .transform(publishFluxOn(scheduler))
-                    .transform(requireNonNullElse(windowingStrategy, flux -> flux.window(MAX_WINDOW_SIZE)))
-                    .flatMap(flux -> flux.collect(partitioningBy(Updated.class::isInstance)))
-                    .flatMap(eventMap -> cache.updateAll(toMap(eventMap.get(true), mapCollector), toMap(eventMap.get(false), mapCollector)))
+                    .transform(flux -> eventBuffer != null ? bounded(flux, eventBuffer, event -> cache.mergeAll(toMap(List.of(event), mapCollector), (id, existingValue, incomingValue) -> null)) : flux);
+
+            final var cacheSourceFlux = (partitions == 1
+                    ? events.transform(windowCollector).<Object>flatMap(cacheUpdater, concurrency)
+                    : partitioned(events, partitions, requireNonNullElse(partitionKeyExtractor, cacheContext.correlationIdResolver()), scheduler, rail -> rail.transform(windowCollector).<Object>concatMap(cacheUpdater)))
                     .transform(requireNonNullElse(errorHandler, onErrorContinue(StreamTableFactory::logError)).toFluxErrorHandler());
 
             requireNonNullElse(lifeCycleEventSource, LifeCycleEventListener::start)
@@ -107,6 +217,49 @@ public interface StreamTableFactory {
         };
     }
 
+    private static <U> Flux<U> bounded(Flux<U> events, EventBuffer eventBuffer, Function<U, Mono<?>> invalidator) {
+
+        final var maxSize = eventBuffer.maxSize();
+        final var metrics = eventBuffer.metrics();
+
+        metrics.bufferSize(maxSize);
+
+        final var receivedEvents = events.doOnNext(__ -> metrics.onEventReceived());
+
+        final var bufferedEvents = switch (eventBuffer.overflowPolicy()) {
+            case BLOCK -> receivedEvents.limitRate(maxSize);
+            case DROP_OLDEST -> receivedEvents.onBackpressureBuffer(maxSize, __ -> metrics.onEventDropped(false), BufferOverflowStrategy.DROP_OLDEST);
+            case INVALIDATE -> receivedEvents.onBackpressureBuffer(maxSize, event -> {
+                metrics.onEventDropped(true);
+                invalidator.apply(event).subscribe(null, e -> logError(e, event));
+            }, BufferOverflowStrategy.DROP_OLDEST);
+        };
+
+        return bufferedEvents.doOnNext(__ -> metrics.onEventConsumed());
+    }
+
+    private static <R, U extends CacheEvent<R>> Flux<Object> partitioned(
+            Flux<U> events,
+            int partitions,
+            Function<R, ?> partitionKeyExtractor,
+            Scheduler scheduler,
+            Function<Flux<U>, Flux<Object>> railUpdater) {
+
+        final var railScheduler = requireNonNullElse(scheduler, parallel());
+
+        return events
+                .groupBy(event -> stripeOf(partitionKeyExtractor.apply(event.value()), partitions))
+                .flatMap(rail -> railUpdater.apply(rail.publishOn(railScheduler)), partitions);
+    }
+
+    // Only the last event of a window is kept for each id, so hot keys are written once per window
+    // and an add following a remove (or the reverse) is applied in the order it was received
+    private static <R, U extends CacheEvent<R>> Collector<U, ?, Map<Boolean, List<U>>> lastEventPerId(Function<R, ?> idResolver) {
+        return collectingAndThen(
+                Collectors.toMap(event -> idResolver.apply(event.value()), identity(), (previousEvent, event) -> event, LinkedHashMap::new),
+                lastEvents -> lastEvents.values().stream().collect(partitioningBy(Updated.class::isInstance)));
+    }
+
     private static <ID, R, RRC> Map<ID, RRC> toMap(List<? extends CacheEvent<R>> cacheEvents, IntFunction<Collector<R, ?, Map<ID, RRC>>> mapCollector) {
         return isEmpty(cacheEvents) ? Map.of() : cacheEvents.stream()
                 .map(CacheEvent::value)
@@ -20,6 +20,8 @@ import io.github.pellse.assembler.ErrorHandler;
 import io.github.pellse.assembler.LifeCycleEventSource;
 import io.github.pellse.assembler.WindowingStrategy;
 import io.github.pellse.assembler.caching.CacheFactory.CacheTransformer;
+import io.github.pellse.assembler.caching.StreamTableFactory.EventBuffer;
+import io.github.pellse.assembler.caching.StreamTableFactory.OverflowPolicy;
 import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Scheduler;
 
@@ -27,6 +29,8 @@ import java.time.Duration;
 import java.util.function.*;
 
 import static io.github.pellse.assembler.ErrorHandler.OnErrorContinue.onErrorContinue;
+import static io.github.pellse.assembler.WindowingStrategy.adaptiveWindowingStrategy;
+import static io.github.pellse.assembler.caching.StreamTableFactory.EventBuffer.eventBuffer;
 import static io.github.pellse.assembler.caching.StreamTableFactory.streamTable;
 import static io.github.pellse.assembler.caching.CacheEvent.toCacheEvent;
 import static java.util.function.Function.identity;
@@ -49,24 +53,61 @@ public interface StreamTableFactoryBuilder {
             Predicate<U> isAddOrUpdateEvent,
             Function<U, R> cacheEventValueExtractor) {
 
-        return new Builder<>(dataSource.map(toCacheEvent(isAddOrUpdateEvent, cacheEventValueExtractor)), null, null, null, null, null);
+        return new Builder<>(dataSource.map(toCacheEvent(isAddOrUpdateEvent, cacheEventValueExtractor)), null, 1, null, null, null, null, null, null);
     }
 
-    interface WindowingStrategyBuilder<R, U extends CacheEvent<R>> extends ConfigBuilder<R> {
+    interface WindowingStrategyBuilder<R, U extends CacheEvent<R>> extends PartitionBuilder<R> {
 
-        default ConfigBuilder<R> maxWindowSize(int maxWindowSize) {
+        default PartitionBuilder<R> maxWindowSize(int maxWindowSize) {
             return windowingStrategy(flux -> flux.window(maxWindowSize));
         }
 
-        default ConfigBuilder<R> maxWindowTime(Duration maxWindowTime) {
+        default PartitionBuilder<R> maxWindowTime(Duration maxWindowTime) {
             return windowingStrategy(flux -> flux.window(maxWindowTime));
         }
 
-        default ConfigBuilder<R> maxWindowSizeAndTime(int maxWindowSize, Duration maxWindowTime) {
+        default PartitionBuilder<R> maxWindowSizeAndTime(int maxWindowSize, Duration maxWindowTime) {
             return windowingStrategy(flux -> flux.windowTimeout(maxWindowSize, maxWindowTime));
         }
 
-        ConfigBuilder<R> windowingStrategy(WindowingStrategy<U> windowingStrategy);
+        default PartitionBuilder<R> adaptiveWindow(Duration targetLatency) {
+            return windowingStrategy(adaptiveWindowingStrategy(targetLatency));
+        }
+
+        default PartitionBuilder<R> adaptiveWindow(int minWindowSize, int maxWindowSize, Duration targetLatency) {
+            return windowingStrategy(adaptiveWindowingStrategy(minWindowSize, maxWindowSize, targetLatency));
+        }
+
+        PartitionBuilder<R> windowingStrategy(WindowingStrategy<U> windowingStrategy);
+    }
+
+    interface PartitionBuilder<R> extends BufferBuilder<R> {
+
+        /**
+         * Partitions events by cache key, see {@link CacheContext#correlationIdResolver()}
+         */
+        default BufferBuilder<R> partitions(int partitions) {
+            return partitions(partitions, null);
+        }
+
+        BufferBuilder<R> partitions(int partitions, Function<R, ?> partitionKeyExtractor);
+    }
+
+    interface BufferBuilder<R> extends ConfigBuilder<R> {
+
+        default ConfigBuilder<R> buffer(int maxSize) {
+            return buffer(eventBuffer(maxSize));
+        }
+
+        default ConfigBuilder<R> buffer(int maxSize, OverflowPolicy overflowPolicy) {
+            return buffer(eventBuffer(maxSize, overflowPolicy));
+        }
+
+        default ConfigBuilder<R> buffer(int maxSize, OverflowPolicy overflowPolicy, StreamTableMetrics metrics) {
+            return buffer(eventBuffer(maxSize, overflowPolicy, metrics));
+        }
+
+        ConfigBuilder<R> buffer(EventBuffer eventBuffer);
     }
 
     interface ConfigBuilder<R> extends LifeCycleEventSourceBuilder<R> {
@@ -106,40 +147,53 @@ public interface StreamTableFactoryBuilder {
     record Builder<R, U extends CacheEvent<R>>(
             Flux<U> dataSource,
             WindowingStrategy<U> windowingStrategy,
+            int partitions,
+            Function<R, ?> partitionKeyExtractor,
+            EventBuffer eventBuffer,
             ErrorHandler errorHandler,
             Scheduler scheduler,
             LifeCycleEventSource eventSource,
             CacheTransformer<?, R, ?, ?> cacheTransformer) implements WindowingStrategyBuilder<R, U> {
 
         @Override
-        public ConfigBuilder<R> windowingStrategy(WindowingStrategy<U> windowingStrategy) {
-            return new Builder<>(dataSource, windowingStrategy, null, null, null, null);
+        public PartitionBuilder<R> windowingStrategy(WindowingStrategy<U> windowingStrategy) {
+            return new Builder<>(dataSource, windowingStrategy, 1, null, null, null, null, null, null);
+        }
+
+        @Override
+        public BufferBuilder<R> partitions(int partitions, Function<R, ?> partitionKeyExtractor) {
+            return new Builder<>(dataSource, windowingStrategy, partitions, partitionKeyExtractor, null, null, null, null, null);
+        }
+
+        @Override
+        public ConfigBuilder<R> buffer(EventBuffer eventBuffer) {
+            return new Builder<>(dataSource, windowingStrategy, partitions, partitionKeyExtractor, eventBuffer, null, null, null, null);
         }
 
         @Override
         public LifeCycleEventSourceBuilder<R> errorHandler(ErrorHandler errorHandler) {
-            return new Builder<>(dataSource, windowingStrategy, errorHandler, null, null, null);
+            return new Builder<>(dataSource, windowingStrategy, partitions, partitionKeyExtractor, eventBuffer, errorHandler, null, null, null);
         }
 
         @Override
         public SchedulerBuilder<R> lifeCycleEventSource(LifeCycleEventSource eventSource) {
-            return new Builder<>(dataSource, windowingStrategy, errorHandler, null, eventSource, null);
+            return new Builder<>(dataSource, windowingStrategy, partitions, partitionKeyExtractor, eventBuffer, errorHandler, null, eventSource, null);
         }
 
         @Override
         public CacheTransformerBuilder<R> scheduler(Scheduler scheduler) {
-            return new Builder<>(dataSource, windowingStrategy, errorHandler, scheduler, eventSource, null);
+            return new Builder<>(dataSource, windowingStrategy, partitions, partitionKeyExtractor, eventBuffer, errorHandler, scheduler, eventSource, null);
         }
 
         @Override
         public StreamTableFactoryDelegateBuilder<R> transformer(CacheTransformer<?, R, ?, ?> cacheTransformer) {
-            return new Builder<>(dataSource, windowingStrategy, errorHandler, scheduler, eventSource, cacheTransformer);
+            return new Builder<>(dataSource, windowingStrategy, partitions, partitionKeyExtractor, eventBuffer, errorHandler, scheduler, eventSource, cacheTransformer);
         }
 
         @SuppressWarnings("unchecked")
         @Override
         public <ID, RRC, CTX extends CacheContext<ID, R, RRC, CTX>> CacheTransformer<ID, R, RRC, CTX> build() {
-            return streamTable(dataSource, windowingStrategy, errorHandler, eventSource, scheduler, (CacheTransformer<ID, R, RRC, CTX>) cacheTransformer);
+            return streamTable(dataSource, windowingStrategy, partitions, partitionKeyExtractor, eventBuffer, errorHandler, eventSource, scheduler, (CacheTransformer<ID, R, RRC, CTX>) cacheTransformer);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pellse.assembler.caching;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+import static java.time.Duration.ZERO;
+
+/**
+ * Lag metrics of the bounded buffer sitting between a {@code streamTable()} data source and its cache writes,
+ * an instance must not be shared between several stream tables.
+ */
+public final class StreamTableMetrics {
+
+    private final AtomicLong receivedEvents = new AtomicLong();
+    private final AtomicLong consumedEvents = new AtomicLong();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder invalidatedEvents = new LongAdder();
+
+    // Receive time of each buffered event indexed by its sequence number, the buffer is FIFO so the oldest pending
+    // event is always the one following the last consumed or dropped event
+    private volatile AtomicLongArray receiveTimes = new AtomicLongArray(1);
+
+    private StreamTableMetrics() {
+    }
+
+    public static StreamTableMetrics streamTableMetrics() {
+        return new StreamTableMetrics();
+    }
+
+    /**
+     * @return the number of events received from the data source and not yet picked up by the windowing strategy
+     */
+    public long pendingEvents() {
+        final var consumed = consumedEvents.get();
+        return max(receivedEvents.get() - consumed, 0);
+    }
+
+    public Duration oldestPendingAge() {
+        final var oldest = consumedEvents.get();
+        if (oldest >= receivedEvents.get()) {
+            return ZERO;
+        }
+        final var times = receiveTimes;
+        return Duration.ofNanos(max(nanoTime() - times.get(index(oldest, times)), 0));
+    }
+
+    public long receivedEvents() {
+        return receivedEvents.get();
+    }
+
+    /**
+     * @return the number of events discarded by {@link StreamTableFactory.OverflowPolicy#DROP_OLDEST} or
+     * {@link StreamTableFactory.OverflowPolicy#INVALIDATE}, invalidated events included
+     */
+    public long droppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    public long invalidatedEvents() {
+        return invalidatedEvents.sum();
+    }
+
+    void bufferSize(int maxSize) {
+        // An overflowing event is received before the oldest one is dropped, hence the extra slot
+        receiveTimes = new AtomicLongArray(maxSize + 1);
+    }
+
+    void onEventReceived() {
+        final var received = receivedEvents.get();
+        final var times = receiveTimes;
+        times.set(index(received, times), nanoTime());
+        receivedEvents.lazySet(received + 1);
+    }
+
+    void onEventConsumed() {
+        consumedEvents.incrementAndGet();
+    }
+
+    void onEventDropped(boolean invalidated) {
+        consumedEvents.incrementAndGet();
+        droppedEvents.increment();
+        if (invalidated) {
+            invalidatedEvents.increment();
+        }
+    }
+
+    private static int index(long sequence, AtomicLongArray times) {
+        return (int) (sequence % times.length());
+    }
+}
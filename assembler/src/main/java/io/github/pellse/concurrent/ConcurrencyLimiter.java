@@ -0,0 +1,173 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.concurrent;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.github.pellse.concurrent.PermitRequest.State.*;
+import static java.lang.System.nanoTime;
+import static reactor.core.publisher.Mono.*;
+
+public interface ConcurrencyLimiter {
+
+    int UNBOUNDED_QUEUE = Integer.MAX_VALUE;
+
+    <T> Mono<T> limit(Mono<T> mono);
+
+    int inFlight();
+
+    int queueDepth();
+
+    static ConcurrencyLimiter concurrencyLimiter(int maxPermits) {
+        return concurrencyLimiter(maxPermits, UNBOUNDED_QUEUE);
+    }
+
+    static ConcurrencyLimiter concurrencyLimiter(int maxPermits, int maxQueueSize) {
+        return concurrencyLimiter(maxPermits, maxQueueSize, null);
+    }
+
+    static ConcurrencyLimiter concurrencyLimiter(int maxPermits, int maxQueueSize, Duration maxQueueTime) {
+        return concurrencyLimiter(maxPermits, maxQueueSize, maxQueueTime, new ConcurrencyLimiterListener() {
+        });
+    }
+
+    static ConcurrencyLimiter concurrencyLimiter(int maxPermits, int maxQueueSize, Duration maxQueueTime, ConcurrencyLimiterListener listener) {
+
+        if (maxPermits <= 0) {
+            throw new IllegalArgumentException("maxPermits must be greater than 0, was " + maxPermits);
+        }
+
+        final var availablePermits = new AtomicInteger(maxPermits);
+        final var queueDepth = new AtomicInteger();
+        final Queue<PermitRequest> queue = new ConcurrentLinkedQueue<>();
+
+        return new ConcurrencyLimiter() {
+
+            @Override
+            public <T> Mono<T> limit(Mono<T> mono) {
+                return usingWhen(acquirePermit(), __ -> mono, __ -> fromRunnable(this::releasePermit));
+            }
+
+            @Override
+            public int inFlight() {
+                return maxPermits - availablePermits.get();
+            }
+
+            @Override
+            public int queueDepth() {
+                return queueDepth.get();
+            }
+
+            private Mono<PermitRequest> acquirePermit() {
+                return defer(() -> {
+                    if (queueDepth.get() == 0 && tryAcquirePermit()) {
+                        listener.onPermitAcquired(0, 0);
+                        return just(PermitRequest.GRANTED_PERMIT);
+                    }
+
+                    if (queueDepth.get() >= maxQueueSize) {
+                        listener.onPermitRejected(queueDepth.get());
+                        return error(new RejectedExecutionException("Maximum queue size of " + maxQueueSize + " reached, " + maxPermits + " permits in use"));
+                    }
+
+                    final var permitRequest = new PermitRequest(nanoTime());
+                    listener.onPermitQueued(queueDepth.incrementAndGet());
+                    queue.offer(permitRequest);
+                    drainQueue();
+
+                    final var permitMono = permitRequest.sink().asMono()
+                            .doOnNext(__ -> listener.onPermitAcquired(nanoTime() - permitRequest.requestTime(), queueDepth.get()))
+                            .doOnCancel(() -> cancel(permitRequest));
+
+                    return maxQueueTime == null ? permitMono : permitMono
+                            .timeout(maxQueueTime)
+                            .doOnError(TimeoutException.class, __ -> listener.onPermitTimedOut(nanoTime() - permitRequest.requestTime()));
+                });
+            }
+
+            private boolean tryAcquirePermit() {
+                int permits;
+                do {
+                    permits = availablePermits.get();
+                    if (permits == 0) {
+                        return false;
+                    }
+                } while (!availablePermits.compareAndSet(permits, permits - 1));
+                return true;
+            }
+
+            private void releasePermit() {
+                availablePermits.incrementAndGet();
+                drainQueue();
+            }
+
+            private void cancel(PermitRequest permitRequest) {
+                if (permitRequest.state().compareAndSet(WAITING, CANCELLED)) {
+                    queueDepth.decrementAndGet();
+                    queue.remove(permitRequest);
+                } else if (permitRequest.state().get() == GRANTED) {
+                    releasePermit();
+                }
+            }
+
+            private void drainQueue() {
+                while (!queue.isEmpty() && tryAcquirePermit()) {
+                    if (!grantNextPermit()) {
+                        availablePermits.incrementAndGet();
+                    }
+                }
+            }
+
+            private boolean grantNextPermit() {
+                PermitRequest permitRequest;
+                while ((permitRequest = queue.poll()) != null) {
+                    if (permitRequest.state().compareAndSet(WAITING, GRANTED)) {
+                        queueDepth.decrementAndGet();
+                        permitRequest.sink().tryEmitValue(permitRequest);
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+}
+
+record PermitRequest(long requestTime, Sinks.One<PermitRequest> sink, AtomicReference<State> state) {
+
+    enum State {
+        WAITING,
+        GRANTED,
+        CANCELLED
+    }
+
+    static final PermitRequest GRANTED_PERMIT = new PermitRequest(0, null, new AtomicReference<>(GRANTED));
+
+    PermitRequest(long requestTime) {
+        this(requestTime, Sinks.one(), new AtomicReference<>(WAITING));
+    }
+}
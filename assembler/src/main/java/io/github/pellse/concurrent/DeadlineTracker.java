@@ -0,0 +1,253 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pellse.concurrent;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.lang.System.Logger;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.Math.max;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.lang.System.getLogger;
+import static java.lang.System.nanoTime;
+import static java.time.Duration.ofMillis;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static reactor.core.Exceptions.throwIfJvmFatal;
+
+/**
+ * Hashed wheel of deadlines shared by all the operations of a {@link ReactiveGuard}, arming and cancelling a deadline
+ * only enqueues it, the wheel itself is only touched by a single tick task that runs as long as deadlines are pending.
+ * Deadlines fire up to one tick late but never early.
+ */
+final class DeadlineTracker {
+
+    private static final Logger logger = getLogger(DeadlineTracker.class.getName());
+
+    static final Duration DEFAULT_TICK_DURATION = ofMillis(10);
+
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final Scheduler scheduler;
+    private final long tickNanos;
+
+    private final Queue<Deadline> armedDeadlines = new ConcurrentLinkedQueue<>();
+    private final Queue<Deadline> cancelledDeadlines = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingDeadlines = new AtomicInteger();
+    private final AtomicBoolean ticking = new AtomicBoolean();
+
+    // Only accessed from the tick task
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    private long startTime;
+    private long currentTick = -1;
+
+    DeadlineTracker(Scheduler scheduler) {
+        this(scheduler, DEFAULT_TICK_DURATION);
+    }
+
+    DeadlineTracker(Scheduler scheduler, Duration tickDuration) {
+        this.scheduler = scheduler;
+        this.tickNanos = max(1, tickDuration.toNanos());
+
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Bucket();
+        }
+    }
+
+    /**
+     * @return a {@link Mono} emitting once {@code timeout} has elapsed since subscription, cancelling it disarms the deadline
+     */
+    Mono<Long> deadline(Duration timeout) {
+        return Mono.create(sink -> {
+            final var deadline = arm(timeout, () -> sink.success(0L));
+            sink.onCancel(deadline::cancel);
+        });
+    }
+
+    Deadline arm(Duration timeout, Runnable action) {
+        final var deadline = new Deadline(nanoTime() + timeout.toNanos(), action);
+
+        pendingDeadlines.incrementAndGet();
+        armedDeadlines.offer(deadline);
+        startTicking();
+
+        return deadline;
+    }
+
+    int pendingDeadlines() {
+        return pendingDeadlines.get();
+    }
+
+    private void startTicking() {
+        if (ticking.compareAndSet(false, true)) {
+            scheduler.schedule(this::tick, tickNanos, NANOSECONDS);
+        }
+    }
+
+    // The next tick is always scheduled (or ticking reset) even if a tick fails, otherwise no deadline would ever fire again
+    private void tick() {
+        try {
+            advanceWheel();
+        } finally {
+            scheduleNextTick();
+        }
+    }
+
+    private void advanceWheel() {
+        final long now = nanoTime();
+        if (currentTick < 0) {
+            startTime = now - tickNanos;
+            currentTick = 0;
+        }
+
+        removeCancelledDeadlines();
+        transferArmedDeadlines();
+
+        final long nowTick = (now - startTime) / tickNanos;
+        for (long tick = currentTick; tick <= nowTick && tick - currentTick < WHEEL_SIZE; tick++) {
+            expireDeadlines(wheel[(int) (tick & WHEEL_MASK)], now);
+        }
+        currentTick = nowTick + 1;
+    }
+
+    private void scheduleNextTick() {
+        if (pendingDeadlines.get() > 0) {
+            scheduler.schedule(this::tick, tickNanos, NANOSECONDS);
+        } else {
+            ticking.set(false);
+            if (pendingDeadlines.get() > 0) {
+                startTicking(); // A deadline was armed while we were stopping
+            }
+        }
+    }
+
+    private void removeCancelledDeadlines() {
+        Deadline deadline;
+        while ((deadline = cancelledDeadlines.poll()) != null) {
+            // Deadlines cancelled before reaching the wheel are dropped by transferArmedDeadlines()
+            if (deadline.bucket != null) {
+                deadline.bucket.remove(deadline);
+                pendingDeadlines.decrementAndGet();
+            }
+        }
+    }
+
+    private void transferArmedDeadlines() {
+        Deadline deadline;
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK && (deadline = armedDeadlines.poll()) != null; i++) {
+            if (deadline.isCancelled()) {
+                pendingDeadlines.decrementAndGet();
+                continue;
+            }
+            final long deadlineTick = max(currentTick, (deadline.deadlineNanos - startTime + tickNanos - 1) / tickNanos);
+            wheel[(int) (deadlineTick & WHEEL_MASK)].add(deadline);
+        }
+    }
+
+    private void expireDeadlines(Bucket bucket, long now) {
+        var deadline = bucket.head;
+        while (deadline != null) {
+            final var next = deadline.next;
+            if (deadline.isCancelled()) {
+                bucket.remove(deadline);
+                pendingDeadlines.decrementAndGet();
+            } else if (deadline.deadlineNanos <= now) {
+                bucket.remove(deadline);
+                pendingDeadlines.decrementAndGet();
+                deadline.expire();
+            }
+            deadline = next;
+        }
+    }
+
+    final class Deadline {
+
+        private final long deadlineNanos;
+        private final Runnable action;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        // Only accessed from the tick task
+        private Bucket bucket;
+        private Deadline previous, next;
+
+        private Deadline(long deadlineNanos, Runnable action) {
+            this.deadlineNanos = deadlineNanos;
+            this.action = action;
+        }
+
+        void cancel() {
+            if (done.compareAndSet(false, true)) {
+                cancelledDeadlines.offer(this);
+            }
+        }
+
+        boolean isCancelled() {
+            return done.get();
+        }
+
+        private void expire() {
+            if (done.compareAndSet(false, true)) {
+                try {
+                    action.run();
+                } catch (Throwable t) {
+                    throwIfJvmFatal(t);
+                    logger.log(WARNING, "Error while running deadline action", t);
+                }
+            }
+        }
+    }
+
+    private static final class Bucket {
+
+        private Deadline head, tail;
+
+        void add(Deadline deadline) {
+            deadline.bucket = this;
+            if (head == null) {
+                head = tail = deadline;
+            } else {
+                tail.next = deadline;
+                deadline.previous = tail;
+                tail = deadline;
+            }
+        }
+
+        void remove(Deadline deadline) {
+            if (deadline.previous != null) {
+                deadline.previous.next = deadline.next;
+            } else {
+                head = deadline.next;
+            }
+            if (deadline.next != null) {
+                deadline.next.previous = deadline.previous;
+            } else {
+                tail = deadline.previous;
+            }
+            deadline.bucket = null;
+            deadline.previous = deadline.next = null;
+        }
+    }
+}
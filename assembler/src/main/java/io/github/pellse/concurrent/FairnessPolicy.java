@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pellse.concurrent;
+
+/**
+ * Defines in which order {@link ReactiveGuard} grants queued read and write lock requests.
+ * Lock upgrades from an already held lock are always granted first as they cannot wait behind other writers.
+ */
+public enum FairnessPolicy {
+
+    /**
+     * Readers are admitted as long as no write lock is held, writers wait for all readers to leave, highest read throughput
+     * but writers can starve under a continuous stream of readers.
+     */
+    READER_PREFERRED,
+
+    /**
+     * New readers queue up behind waiting writers, writers can't starve but readers can during long write bursts.
+     */
+    WRITER_PREFERRED,
+
+    /**
+     * Alternates between a writer and the batch of readers that queued up while it was waiting or running,
+     * neither readers nor writers can starve.
+     */
+    PHASE_FAIR
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.pellse.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Lock free histogram with power of two buckets, cheap enough to record every lock acquisition,
+ * percentiles are reported as the upper bound of the bucket they fall into.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        final long v = max(0, value);
+        buckets[BUCKET_COUNT - numberOfLeadingZeros(v)].increment(); // Bucket i holds values in [2^(i-1), 2^i - 1]
+        count.increment();
+        total.add(v);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public double mean() {
+        final long count = count();
+        return count == 0 ? 0 : (double) total() / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound of the bucket containing the requested percentile, 0 if nothing was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        final long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += (counts[i] = buckets[i].sum());
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        final long rank = max(1, (long) ceil(min(100, max(0, percentile)) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if ((seen += counts[i]) >= rank) {
+                return upperBound(i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public void reset() {
+        for (var bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        total.reset();
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
@@ -16,22 +16,31 @@
 
 package io.github.pellse.concurrent;
 
+import io.github.pellse.concurrent.LockMetricsListener.LockMode;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
-import reactor.core.publisher.Sinks.EmitResult;
 
+import java.lang.invoke.VarHandle;
 import java.time.Instant;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.*;
 
+import static io.github.pellse.concurrent.FairnessPolicy.READER_PREFERRED;
+import static io.github.pellse.concurrent.LockManager.LockRequest.State.*;
+import static io.github.pellse.concurrent.LockMetricsListener.LockMode.READ;
+import static io.github.pellse.concurrent.LockMetricsListener.LockMode.WRITE;
 import static io.github.pellse.concurrent.NoopLock.noopLock;
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.System.nanoTime;
 import static java.lang.Thread.currentThread;
-import static java.lang.Thread.onSpinWait;
 import static java.time.Instant.now;
+import static java.util.Objects.requireNonNull;
+import static reactor.core.publisher.Mono.defer;
 import static reactor.core.publisher.Mono.just;
-import static reactor.core.publisher.Sinks.EmitResult.FAIL_NON_SERIALIZED;
 
 class LockManager {
 
@@ -49,9 +58,45 @@ class LockManager {
         }
     }
 
-    private record LockRequest<L extends CoreLock<L>>(L lock, Sinks.One<L> sink) {
-        LockRequest(L lock) {
-            this(lock, Sinks.one());
+    record LockRequest<L extends CoreLock<L>>(L lock, long requestTime, Sinks.One<Lock<L>> sink, AtomicReference<State> state) {
+
+        enum State {
+            WAITING,
+            GRANTED,
+            ACQUIRED,
+            CANCELLED
+        }
+
+        LockRequest(L lock, long requestTime) {
+            this(lock, requestTime, Sinks.one(), new AtomicReference<>(WAITING));
+        }
+    }
+
+    private record LockQueue<L extends CoreLock<L>>(Queue<LockRequest<L>> requests, AtomicInteger depth, LockMode lockMode) {
+
+        LockQueue(LockMode lockMode) {
+            this(new ConcurrentLinkedQueue<>(), new AtomicInteger(), lockMode);
+        }
+
+        int offer(LockRequest<L> lockRequest) {
+            requests.offer(lockRequest);
+            return depth.incrementAndGet();
+        }
+
+        LockRequest<L> peek() {
+            return requests.peek();
+        }
+
+        boolean remove(LockRequest<L> lockRequest) {
+            if (requests.remove(lockRequest)) {
+                depth.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        int size() {
+            return depth.get();
         }
     }
 
@@ -62,30 +107,68 @@ class LockManager {
 
     private final AtomicLong lockState = new AtomicLong();
 
-    private final Queue<LockRequest<ReadLock>> readQueue = new ConcurrentLinkedQueue<>();
-    private final Queue<LockRequest<WriteLock>> writeQueue = new ConcurrentLinkedQueue<>();
+    // Seqlock style version, odd while a write lock is held, used to validate optimistic reads
+    private final AtomicLong version = new AtomicLong(2);
+
+    private final LockQueue<ReadLock> readQueue = new LockQueue<>(READ);
+    private final LockQueue<WriteLock> writeQueue = new LockQueue<>(WRITE);
+    private final LockQueue<WriteLock> upgradeQueue = new LockQueue<>(WRITE);
 
+    // Only one thread at a time drains the queues, a release happening while draining triggers one more pass instead of spinning
+    private final AtomicInteger drainInProgress = new AtomicInteger();
+
+    // Only accessed while draining
+    private boolean readPhase;
+
+    private final FairnessPolicy fairnessPolicy;
+
+    // Both listeners are optional, when null no event is created and no timestamp is taken
     private final ConcurrencyMonitoringEventListener concurrencyMonitoringEventListener;
+    private final LockMetricsListener lockMetricsListener;
 
     LockManager() {
-        this(__ -> {
-        });
+        this(READER_PREFERRED);
+    }
+
+    LockManager(FairnessPolicy fairnessPolicy) {
+        this(fairnessPolicy, (LockMetricsListener) null);
+    }
+
+    LockManager(FairnessPolicy fairnessPolicy, LockMetricsListener lockMetricsListener) {
+        this(fairnessPolicy, null, lockMetricsListener);
     }
 
     LockManager(ConcurrencyMonitoringEventListener concurrencyMonitoringEventListener) {
+        this(READER_PREFERRED, concurrencyMonitoringEventListener, null);
+    }
+
+    LockManager(FairnessPolicy fairnessPolicy, ConcurrencyMonitoringEventListener concurrencyMonitoringEventListener, LockMetricsListener lockMetricsListener) {
+        this.fairnessPolicy = requireNonNull(fairnessPolicy, "fairnessPolicy cannot be null");
         this.concurrencyMonitoringEventListener = concurrencyMonitoringEventListener;
+        this.lockMetricsListener = lockMetricsListener;
     }
 
     void fireConcurrencyMonitoringEvent(Lock<?> lock, long lockState, ConcurrencyMonitoringEventFactory<?> concurrencyMonitoringEventFactory) {
-        concurrencyMonitoringEventListener.onLockEvent(concurrencyMonitoringEventFactory.create(lock, lockState));
+        if (concurrencyMonitoringEventListener != null) {
+            concurrencyMonitoringEventListener.onLockEvent(concurrencyMonitoringEventFactory.create(lock, lockState));
+        }
     }
 
     void fireConcurrencyMonitoringEvent(LongFunction<ConcurrencyMonitoringEvent> concurrencyMonitoringEventProvider) {
-        concurrencyMonitoringEventListener.onLockEvent(concurrencyMonitoringEventProvider.apply(lockState.get()));
+        if (concurrencyMonitoringEventListener != null) {
+            concurrencyMonitoringEventListener.onLockEvent(concurrencyMonitoringEventProvider.apply(lockState.get()));
+        }
+    }
+
+    void fireTaskTimedOut(Lock<?> lock) {
+        if (lockMetricsListener != null) {
+            lockMetricsListener.onTaskTimedOut(lockModeOf(lock));
+        }
     }
 
     Mono<? extends Lock<?>> acquireReadLock() {
-        return acquireLock(ReadLock::new, noopLock(), this::tryAcquireReadLock, this::releaseReadLock, readQueue);
+        return acquireLock(ReadLock::new, noopLock(), this::tryAcquireReadLock, this::releaseReadLock, readQueue,
+                () -> fairnessPolicy == READER_PREFERRED || !hasPendingRequests(writeQueue));
     }
 
     Mono<? extends Lock<?>> acquireWriteLock() {
@@ -93,7 +176,19 @@ class LockManager {
     }
 
     Mono<? extends Lock<?>> toWriteLock(Lock<?> lock) {
-        return acquireLock(WriteLock::new, lock, this::tryAcquireWriteLock, this::releaseWriteLock, writeQueue);
+        return lock.unwrap() instanceof NoopLock
+                ? acquireLock(WriteLock::new, lock, this::tryAcquireWriteLock, this::releaseWriteLock, writeQueue, () -> !hasPendingRequests(writeQueue))
+                : acquireLock(WriteLock::new, lock, this::tryAcquireWriteLock, this::releaseWriteLock, upgradeQueue, () -> true);
+    }
+
+    long tryOptimisticRead() {
+        final long stamp = version.get();
+        return (stamp & 1) == 0 && (lockState.get() & WRITE_LOCK_MASK) == 0 ? stamp : 0;
+    }
+
+    boolean validate(long stamp) {
+        VarHandle.acquireFence();
+        return stamp != 0 && version.get() == stamp;
     }
 
     void releaseReadLock(ReadLock innerLock) {
@@ -109,18 +204,60 @@ class LockManager {
             Lock<?> outerLock,
             Predicate<L> tryAcquireLock,
             Consumer<L> lockReleaser,
-            Queue<LockRequest<L>> queue) {
+            LockQueue<L> queue,
+            BooleanSupplier canBypassQueue) {
+
+        return defer(() -> {
+            final var innerLock = lockFactory.create(idCounter.incrementAndGet(), outerLock.unwrap(), lockReleaser);
 
-        final var innerLock = lockFactory.create(idCounter.incrementAndGet(), outerLock.unwrap(), lockReleaser);
+            if (canBypassQueue.getAsBoolean() && tryAcquireLock.test(innerLock)) {
+                if (lockMetricsListener != null) {
+                    lockMetricsListener.onLockAcquired(queue.lockMode(), 0, queue.size());
+                }
+                return just(wrap(innerLock));
+            }
 
-        if (tryAcquireLock.test(innerLock)) {
-            return just(new WrapperLock<>(innerLock, this::releaseAndDrain));
+            final var lockRequest = new LockRequest<>(innerLock, lockMetricsListener != null ? nanoTime() : 0);
+            final int queueDepth = queue.offer(lockRequest);
+            if (lockMetricsListener != null) {
+                lockMetricsListener.onLockQueued(queue.lockMode(), queueDepth);
+            }
+            drainQueues(); // The lock might have been released between the failed attempt and the offer
+
+            return lockRequest.sink().asMono()
+                    .<Lock<L>>handle((lock, sink) -> {
+                        if (lockRequest.state().compareAndSet(GRANTED, ACQUIRED)) {
+                            sink.next(lock);
+                        }
+                    })
+                    .doOnCancel(() -> cancel(lockRequest));
+        });
+    }
+
+    private <L extends CoreLock<L>> Lock<L> wrap(L innerLock) {
+        if (lockMetricsListener == null) {
+            return new WrapperLock<>(innerLock, this::releaseAndDrain);
         }
 
-        final var lockRequest = new LockRequest<>(innerLock);
-        queue.offer(lockRequest);
+        final long acquiredTime = nanoTime();
+        return new WrapperLock<>(innerLock, lockReleaser -> releaseAndDrain(lock -> {
+            lockReleaser.accept(lock);
+            lockMetricsListener.onLockReleased(lockModeOf(lock), nanoTime() - acquiredTime);
+        }));
+    }
+
+    private static LockMode lockModeOf(Lock<?> lock) {
+        return lock.unwrap() instanceof ReadLock ? READ : WRITE;
+    }
 
-        return lockRequest.sink().asMono();
+    private <L extends CoreLock<L>> void cancel(LockRequest<L> lockRequest) {
+        if (lockRequest.state().compareAndSet(WAITING, CANCELLED)) {
+            drainQueues();
+        } else if (lockRequest.state().compareAndSet(GRANTED, CANCELLED)) {
+            // Granted but never handed over to the subscriber, so nobody else will release it
+            final var innerLock = lockRequest.lock();
+            releaseAndDrain(innerLock.lockReleaser()).accept(innerLock);
+        }
     }
 
     private <L extends CoreLock<L>> Consumer<L> releaseAndDrain(Consumer<L> lockReleaser) {
@@ -143,7 +280,14 @@ class LockManager {
             case WriteLock __ -> (currentState & WRITE_LOCK_MASK) == WRITE_LOCK_MASK;
             case NoopLock __ -> currentState == 0;
         };
-        return tryAcquireLock(innerLock, currentStatePredicate, currentState -> currentState | WRITE_LOCK_MASK);
+        if (!tryAcquireLock(innerLock, currentStatePredicate, currentState -> currentState | WRITE_LOCK_MASK)) {
+            return false;
+        }
+
+        if (!(innerLock.outerLock() instanceof WriteLock)) {
+            version.incrementAndGet();
+        }
+        return true;
     }
 
     private <L extends CoreLock<L>> boolean tryAcquireLock(L innerLock, BiPredicate<L, Long> currentStatePredicate, LongUnaryOperator currentStateUpdater) {
@@ -169,50 +313,82 @@ class LockManager {
     }
 
     private long doReleaseWriteLock(WriteLock innerLock) {
-        return !(innerLock.outerLock() instanceof WriteLock) ? lockState.updateAndGet(currentState -> currentState & READ_LOCK_MASK) : lockState.get();
+        if (innerLock.outerLock() instanceof WriteLock) {
+            return lockState.get();
+        }
+
+        version.incrementAndGet();
+        return lockState.updateAndGet(currentState -> currentState & READ_LOCK_MASK);
     }
 
     private void drainQueues() {
-        LockRequest<WriteLock> writeLockRequest;
-        while ((writeLockRequest = writeQueue.poll()) != null) {
-            if (!unlock(writeLockRequest, this::tryAcquireWriteLock, this::doReleaseWriteLock)) {
-                onSpinWait();
-                drainReadQueue();
-            }
+        if (drainInProgress.getAndIncrement() != 0) {
+            return;
         }
-        drainReadQueue();
+
+        int missed = 1;
+        do {
+            drain();
+            missed = drainInProgress.addAndGet(-missed);
+        } while (missed != 0);
     }
 
-    private void drainReadQueue() {
-        drainQueue(readQueue, this::tryAcquireReadLock, this::doReleaseReadLock);
+    private void drain() {
+        grant(upgradeQueue, this::tryAcquireWriteLock, this::releaseWriteLock, MAX_VALUE);
+
+        switch (fairnessPolicy) {
+            case READER_PREFERRED -> {
+                grant(readQueue, this::tryAcquireReadLock, this::releaseReadLock, MAX_VALUE);
+                grant(writeQueue, this::tryAcquireWriteLock, this::releaseWriteLock, 1);
+            }
+            case WRITER_PREFERRED -> {
+                grant(writeQueue, this::tryAcquireWriteLock, this::releaseWriteLock, 1);
+                if (!hasPendingRequests(writeQueue)) {
+                    grant(readQueue, this::tryAcquireReadLock, this::releaseReadLock, MAX_VALUE);
+                }
+            }
+            case PHASE_FAIR -> {
+                // Only the readers already waiting are part of the read phase, readers arriving later wait for the next writer
+                if (readPhase || !hasPendingRequests(writeQueue)) {
+                    readPhase = false;
+                    grant(readQueue, this::tryAcquireReadLock, this::releaseReadLock, readQueue.size());
+                }
+                if (grant(writeQueue, this::tryAcquireWriteLock, this::releaseWriteLock, 1) > 0) {
+                    readPhase = true;
+                }
+            }
+        }
     }
 
-    private static <L extends CoreLock<L>> void drainQueue(Queue<LockRequest<L>> queue, Predicate<L> tryAcquireLock, Consumer<L> lockReleaser) {
+    private static <L extends CoreLock<L>> boolean hasPendingRequests(LockQueue<L> queue) {
         LockRequest<L> lockRequest;
-        while ((lockRequest = queue.poll()) != null) {
-            while (!unlock(lockRequest, tryAcquireLock, lockReleaser)) {
-                onSpinWait();
-            }
+        while ((lockRequest = queue.peek()) != null && lockRequest.state().get() == CANCELLED) {
+            queue.remove(lockRequest);
         }
+        return lockRequest != null;
     }
 
-    private static <L extends CoreLock<L>> boolean unlock(LockRequest<L> lockRequest, Predicate<L> tryAcquireLock, Consumer<L> lockReleaser) {
-        final var innerLock = lockRequest.lock();
-        if (tryAcquireLock.test(innerLock)) {
-            if (emit(innerLock, lockRequest.sink()).isSuccess()) {
-                return true;
+    private <L extends CoreLock<L>> int grant(LockQueue<L> queue, Predicate<L> tryAcquireLock, Consumer<L> lockReleaser, int maxGrants) {
+        int grants = 0;
+        LockRequest<L> lockRequest;
+
+        while (grants < maxGrants && hasPendingRequests(queue) && (lockRequest = queue.peek()) != null) {
+            final var innerLock = lockRequest.lock();
+            if (!tryAcquireLock.test(innerLock)) {
+                break;
+            }
+
+            queue.remove(lockRequest);
+            if (lockRequest.state().compareAndSet(WAITING, GRANTED)) {
+                if (lockMetricsListener != null) {
+                    lockMetricsListener.onLockAcquired(queue.lockMode(), nanoTime() - lockRequest.requestTime(), queue.size());
+                }
+                lockRequest.sink().tryEmitValue(wrap(innerLock));
+                grants++;
             } else {
                 lockReleaser.accept(innerLock);
             }
         }
-        return false;
-    }
-
-    private static <L extends CoreLock<L>> EmitResult emit(L lock, Sinks.One<L> sink) {
-        EmitResult result;
-        while ((result = sink.tryEmitValue(lock)) == FAIL_NON_SERIALIZED) {
-            onSpinWait();
-        }
-        return result;
+        return grants;
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.pellse.concurrent;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.github.pellse.concurrent.LockMetricsListener.LockMode.READ;
+import static io.github.pellse.concurrent.LockMetricsListener.LockMode.WRITE;
+
+/**
+ * {@link LockMetricsListener} aggregating wait time, hold time, queue depth and timeouts per {@link LockMode},
+ * a single instance can be shared between several guards (e.g. all the stripes of a concurrent cache).
+ */
+public final class LockMetrics implements LockMetricsListener {
+
+    private record ModeMetrics(LatencyHistogram waitTime, LatencyHistogram holdTime, AtomicInteger queueDepth, AtomicInteger maxQueueDepth, LongAdder timeouts) {
+        ModeMetrics() {
+            this(new LatencyHistogram(), new LatencyHistogram(), new AtomicInteger(), new AtomicInteger(), new LongAdder());
+        }
+    }
+
+    private final Map<LockMode, ModeMetrics> metrics = new EnumMap<>(Map.of(READ, new ModeMetrics(), WRITE, new ModeMetrics()));
+
+    private LockMetrics() {
+    }
+
+    public static LockMetrics lockMetrics() {
+        return new LockMetrics();
+    }
+
+    @Override
+    public void onLockQueued(LockMode lockMode, int queueDepth) {
+        updateQueueDepth(metrics.get(lockMode), queueDepth);
+    }
+
+    @Override
+    public void onLockAcquired(LockMode lockMode, long waitTimeNanos, int queueDepth) {
+        final var modeMetrics = metrics.get(lockMode);
+        modeMetrics.waitTime().record(waitTimeNanos);
+        updateQueueDepth(modeMetrics, queueDepth);
+    }
+
+    @Override
+    public void onLockReleased(LockMode lockMode, long holdTimeNanos) {
+        metrics.get(lockMode).holdTime().record(holdTimeNanos);
+    }
+
+    @Override
+    public void onTaskTimedOut(LockMode lockMode) {
+        metrics.get(lockMode).timeouts().increment();
+    }
+
+    public LatencyHistogram waitTime(LockMode lockMode) {
+        return metrics.get(lockMode).waitTime();
+    }
+
+    public LatencyHistogram holdTime(LockMode lockMode) {
+        return metrics.get(lockMode).holdTime();
+    }
+
+    /**
+     * @return the last queue depth observed when a lock of this mode was queued or acquired
+     */
+    public int queueDepth(LockMode lockMode) {
+        return metrics.get(lockMode).queueDepth().get();
+    }
+
+    public int maxQueueDepth(LockMode lockMode) {
+        return metrics.get(lockMode).maxQueueDepth().get();
+    }
+
+    public long timeouts(LockMode lockMode) {
+        return metrics.get(lockMode).timeouts().sum();
+    }
+
+    public long timeouts() {
+        return timeouts(READ) + timeouts(WRITE);
+    }
+
+    private static void updateQueueDepth(ModeMetrics modeMetrics, int queueDepth) {
+        // Avoid writing to shared counters on the uncontended path where the depth stays at 0
+        if (modeMetrics.queueDepth().get() != queueDepth) {
+            modeMetrics.queueDepth().set(queueDepth);
+        }
+        if (queueDepth > modeMetrics.maxQueueDepth().get()) {
+            modeMetrics.maxQueueDepth().accumulateAndGet(queueDepth, Math::max);
+        }
+    }
+}
@@ -21,8 +21,10 @@ import reactor.core.scheduler.Scheduler;
 
 import java.time.Duration;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import static io.github.pellse.concurrent.FairnessPolicy.READER_PREFERRED;
 import static io.github.pellse.util.ObjectUtils.then;
 import static io.github.pellse.util.reactive.ReactiveUtils.nullToEmpty;
 import static java.lang.Thread.currentThread;
@@ -50,6 +52,52 @@ public interface ReactiveGuard {
 
     <T> Mono<T> withLock(Mono<T> mono, Duration timeout, Supplier<T> defaultValueProvider);
 
+    /**
+     * @return a non zero stamp to later {@link #validate(long)}, or 0 if a write lock is currently held
+     */
+    long tryOptimisticRead();
+
+    boolean validate(long stamp);
+
+    default <T> Mono<T> withOptimisticReadLock(Supplier<Mono<T>> monoSupplier) {
+        return withOptimisticReadLock(monoSupplier, null);
+    }
+
+    default <T> Mono<T> withOptimisticReadLock(Supplier<Mono<T>> monoSupplier, Supplier<T> defaultValueProvider) {
+        return withOptimisticReadLock(monoSupplier, DEFAULT_TIMEOUT, defaultValueProvider);
+    }
+
+    default <T> Mono<T> withOptimisticReadLock(Supplier<Mono<T>> monoSupplier, Duration timeout, Supplier<T> defaultValueProvider) {
+        return withOptimisticRead(
+                monoSupplier,
+                () -> then(tryOptimisticRead(), stamp -> stamp != 0 ? stamp : null),
+                this::validate,
+                () -> withReadLock(monoSupplier, timeout, defaultValueProvider));
+    }
+
+    /**
+     * Runs the read without acquiring any lock, then falls back to {@code pessimisticReadProvider} if
+     * {@code stampProvider} returned null (writer active) or if the stamp is no longer valid once the read completes.
+     * {@code monoSupplier} must be side effect free as it can be invoked twice.
+     */
+    static <T, S> Mono<T> withOptimisticRead(
+            Supplier<Mono<T>> monoSupplier,
+            Supplier<S> stampProvider,
+            Predicate<S> stampValidator,
+            Supplier<Mono<T>> pessimisticReadProvider) {
+
+        return defer(() -> {
+            final var stamp = stampProvider.get();
+            if (stamp == null) {
+                return pessimisticReadProvider.get();
+            }
+
+            return monoSupplier.get()
+                    .materialize()
+                    .flatMap(signal -> stampValidator.test(stamp) ? just(signal).<T>dematerialize() : pessimisticReadProvider.get());
+        });
+    }
+
     default <T> Mono<T> withReadLock(Supplier<Mono<T>> monoSupplier) {
         return withReadLock(defer(monoSupplier));
     }
@@ -99,14 +147,30 @@ public interface ReactiveGuard {
     }
 
     static ReactiveGuard create() {
-        return ReactiveGuard.create(null);
+        return ReactiveGuard.create(null, READER_PREFERRED);
     }
 
     static ReactiveGuard create(Scheduler timeoutScheduler) {
+        return ReactiveGuard.create(timeoutScheduler, READER_PREFERRED);
+    }
+
+    static ReactiveGuard create(FairnessPolicy fairnessPolicy) {
+        return ReactiveGuard.create(null, fairnessPolicy);
+    }
+
+    static ReactiveGuard create(Scheduler timeoutScheduler, FairnessPolicy fairnessPolicy) {
+        return ReactiveGuard.create(timeoutScheduler, fairnessPolicy, null);
+    }
+
+    /**
+     * @param lockMetricsListener optional, see {@link LockMetrics}
+     */
+    static ReactiveGuard create(Scheduler timeoutScheduler, FairnessPolicy fairnessPolicy, LockMetricsListener lockMetricsListener) {
 
         final var scheduler = requireNonNullElse(timeoutScheduler, DEFAULT_BOUNDED_ELASTIC_ON_VIRTUAL_THREADS ? boundedElastic() : parallel());
 
-        final var lockManager = new LockManager();
+        final var lockManager = new LockManager(fairnessPolicy, lockMetricsListener);
+        final var deadlineTracker = new DeadlineTracker(scheduler);
 
         return new ReactiveGuard() {
 
@@ -124,6 +188,16 @@ public interface ReactiveGuard {
                 return with(mono, LockManager::acquireReadLock, timeout, defaultValueProvider);
             }
 
+            @Override
+            public long tryOptimisticRead() {
+                return lockManager.tryOptimisticRead();
+            }
+
+            @Override
+            public boolean validate(long stamp) {
+                return lockManager.validate(stamp);
+            }
+
             @Override
             public <T> Mono<T> withReadLock(Function<ReactiveWriteGuard<T>, Mono<T>> writeLockMonoFunction, Duration timeout, Supplier<T> defaultValueProvider) {
                 return with(writeLockMonoFunction, LockManager::acquireReadLock, timeout, defaultValueProvider);
@@ -169,13 +243,16 @@ public interface ReactiveGuard {
                     Supplier<T> defaultValueProvider) {
 
                 return monoProvider.apply(lock)
-                        .transform(mono -> defer(() -> then(currentThread().getName(),
-                                executeOnThread -> mono.timeout(timeout, createFallback(defaultValueProvider, lock, executeOnThread), scheduler))));
+                        .transform(mono -> defer(() -> then(currentThread(),
+                                executeOnThread -> mono.timeout(deadlineTracker.deadline(timeout), createFallback(defaultValueProvider, lock, executeOnThread)))));
             }
 
-            private <T> Mono<T> createFallback(Supplier<T> defaultValueProvider, Lock<?> lock, String executeOnThread) {
+            private <T> Mono<T> createFallback(Supplier<T> defaultValueProvider, Lock<?> lock, Thread executeOnThread) {
                 return nullToEmpty(defaultValueProvider)
-                        .doOnSubscribe(__ -> lockManager.fireConcurrencyMonitoringEvent(lockState -> new TaskTimedOutEvent(lock, lockState, executeOnThread, currentThread().getName())));
+                        .doOnSubscribe(__ -> {
+                            lockManager.fireTaskTimedOut(lock);
+                            lockManager.fireConcurrencyMonitoringEvent(lockState -> new TaskTimedOutEvent(lock, lockState, executeOnThread.getName(), currentThread().getName()));
+                        });
             }
         };
     }
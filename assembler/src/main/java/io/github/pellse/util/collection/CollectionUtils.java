@@ -99,6 +99,40 @@ public interface CollectionUtils {
         return transformMap(map, (key, value) -> key, valueMapper);
     }
 
+    /**
+     * Returns the same map instance when {@code valueMapper} returns every value unchanged, the map is only copied
+     * on the first value that actually changes
+     */
+    static <K, V> Map<K, V> transformMapValuesOnChange(Map<K, V> map, BiFunction<K, V, V> valueMapper) {
+        Map<K, V> copyMap = null;
+
+        for (var entry : map.entrySet()) {
+            final var value = entry.getValue();
+            final var newValue = valueMapper.apply(entry.getKey(), value);
+
+            if (newValue != value) {
+                if (copyMap == null) {
+                    copyMap = new LinkedHashMap<>(map);
+                }
+                copyMap.put(entry.getKey(), newValue);
+            }
+        }
+
+        return copyMap != null ? copyMap : map;
+    }
+
+    /**
+     * Transforms the values directly into {@code map} when it is a {@link HashMap}, other map types (e.g. immutable maps)
+     * fall back to {@link #transformMapValuesOnChange(Map, BiFunction)}
+     */
+    static <K, V> Map<K, V> transformMapValuesInPlace(Map<K, V> map, BiFunction<K, V, V> valueMapper) {
+        if (map instanceof HashMap<K, V> hashMap) {
+            hashMap.replaceAll(valueMapper);
+            return hashMap;
+        }
+        return transformMapValuesOnChange(map, valueMapper);
+    }
+
     static <K, V, K1, V1> Map<K1, V1> transformMap(Map<K, V> map, BiFunction<K, V, K1> keyMapper, BiFunction<K, V, V1> valueMapper) {
         return toLinkedHashMap(map.entrySet(), e -> keyMapper.apply(e.getKey(), e.getValue()), e -> valueMapper.apply(e.getKey(), e.getValue()));
     }
@@ -207,21 +241,68 @@ public interface CollectionUtils {
         return mergeMaps(existingMap, newMap, idResolver, ArrayList::new);
     }
 
+    /**
+     * Cached collections are shared with concurrent readers so they are never modified in place, only the collections of keys
+     * found in {@code newMap} are copied, once: existing children are replaced in place by the new child with the same id,
+     * remaining new children are appended in encounter order.
+     * <p>
+     * Same result as {@code removeDuplicates(concat(existingColl, newColl))} as long as existing collections hold no duplicate ids,
+     * which is the case of every collection returned by this method.
+     */
     static <K, V, VC extends Collection<V>, ID> Map<K, VC> mergeMaps(
             Map<K, VC> existingMap,
             Map<K, VC> newMap,
             Function<? super V, ID> idResolver,
             Function<Collection<V>, VC> collectionConverter) {
 
-        final int size = existingMap.size() + newMap.size();
+        final Map<K, VC> mergedMap = newLinkedHashMap(existingMap.size() + newMap.size());
+        mergedMap.putAll(existingMap);
+
+        newMap.forEach((key, newColl) -> mergedMap.put(key, mergeCollections(existingMap.get(key), newColl, idResolver, collectionConverter)));
+
+        return mergedMap;
+    }
+
+    private static <V, VC extends Collection<V>, ID> VC mergeCollections(
+            Collection<V> existingColl,
+            Collection<V> newColl,
+            Function<? super V, ID> idResolver,
+            Function<Collection<V>, VC> collectionConverter) {
+
+        final Map<ID, V> newElements = toLinkedHashMap(newColl, idResolver);
+        if (existingColl == null || existingColl.isEmpty()) {
+            return collectionConverter.apply(newElements.values());
+        }
+
+        if (existingColl instanceof SortedArrayList<V> sortedColl && sortedColl.isSorted()) {
+            return collectionConverter.apply(mergeSorted(sortedColl, newElements, idResolver));
+        }
 
-        return concat(existingMap.entrySet(), newMap.entrySet())
-                .map(entry -> entry(entry.getKey(), removeDuplicates(entry.getValue(), idResolver, collectionConverter)))
-                .collect(toMap(
-                        Entry::getKey,
-                        Entry::getValue,
-                        (coll1, coll2) -> removeDuplicates(concat(coll1, coll2), idResolver, collectionConverter),
-                        () -> newLinkedHashMap(size)));
+        final var mergedColl = new ArrayList<V>(existingColl.size() + newElements.size());
+        for (V element : existingColl) {
+            final var newElement = newElements.isEmpty() ? null : newElements.remove(idResolver.apply(element));
+            mergedColl.add(newElement != null ? newElement : element);
+        }
+        mergedColl.addAll(newElements.values());
+
+        return collectionConverter.apply(mergedColl);
+    }
+
+    /**
+     * Existing elements are copied in order without the ones being replaced, then a few new elements are inserted
+     * by binary search, i.e. one O(n) copy plus O(k log n) comparisons instead of re-sorting the whole collection
+     */
+    private static <V, ID> SortedArrayList<V> mergeSorted(SortedArrayList<V> sortedColl, Map<ID, V> newElements, Function<? super V, ID> idResolver) {
+
+        final var mergedColl = new SortedArrayList<V>(sortedColl.comparator(), sortedColl.size() + newElements.size());
+        for (V element : sortedColl) {
+            if (!newElements.containsKey(idResolver.apply(element))) {
+                mergedColl.append(element);
+            }
+        }
+        mergedColl.insertAll(newElements.values());
+
+        return mergedColl;
     }
 
     @SafeVarargs
@@ -255,13 +336,65 @@ public interface CollectionUtils {
                             .map(idResolver)
                             .collect(toSet());
 
-                    final var newColl = toStream(entry.getValue())
-                            .filter(element -> !idsToSubtract.contains(idResolver.apply(element)))
-                            .collect(toCollection(collectionFactory));
+                    final var newColl = subtractCollection(entry.getValue(), idsToSubtract, idResolver, collectionFactory);
 
                     return isNotEmpty(newColl) ? entry(entry.getKey(), newColl) : null;
                 })
                 .filter(Objects::nonNull)
                 .collect(toMap(Entry::getKey, Entry::getValue, (v1, v2) -> v1, () -> newLinkedHashMap(srcMap.size())));
     }
+
+    /**
+     * Single pass, the collection is only copied from the first element to remove, when there is nothing to remove
+     * the existing collection is returned as is and stays shared
+     */
+    private static <V, VC extends Collection<V>, ID> VC subtractCollection(
+            VC coll,
+            Set<ID> idsToSubtract,
+            Function<? super V, ID> idResolver,
+            Supplier<VC> collectionFactory) {
+
+        if (coll instanceof SortedArrayList<V> sortedColl && sortedColl.isSorted()) {
+            return subtractSorted(sortedColl, idsToSubtract, idResolver);
+        }
+
+        VC newColl = null;
+        int index = 0;
+
+        for (V element : coll) {
+            if (idsToSubtract.contains(idResolver.apply(element))) {
+                if (newColl == null) {
+                    newColl = collectionFactory.get();
+                    coll.stream().limit(index).forEach(newColl::add);
+                }
+            } else if (newColl != null) {
+                newColl.add(element);
+            }
+            index++;
+        }
+
+        return newColl != null ? newColl : coll;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V, VC extends Collection<V>, ID> VC subtractSorted(SortedArrayList<V> sortedColl, Set<ID> idsToSubtract, Function<? super V, ID> idResolver) {
+
+        SortedArrayList<V> newColl = null;
+
+        for (int index = 0; index < sortedColl.size(); index++) {
+            final var element = sortedColl.get(index);
+            if (idsToSubtract.contains(idResolver.apply(element))) {
+                if (newColl == null) {
+                    newColl = new SortedArrayList<>(sortedColl.comparator(), sortedColl.size());
+                    for (int i = 0; i < index; i++) {
+                        newColl.append(sortedColl.get(i));
+                    }
+                }
+            } else if (newColl != null) {
+                newColl.append(element);
+            }
+        }
+
+        return newColl != null ? (VC) newColl : (VC) sortedColl;
+    }
 }
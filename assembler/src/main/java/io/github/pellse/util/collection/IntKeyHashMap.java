@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.util.collection;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Open addressing {@link Map} storing its keys as primitive {@code int} values, avoiding one {@link Integer} and
+ * one node per entry and the pointer chasing of {@link HashMap} lookups.
+ *
+ * @param <V> Type of the values
+ */
+public class IntKeyHashMap<V> extends PrimitiveKeyHashMap<Integer, V> {
+
+    public IntKeyHashMap() {
+        this(0);
+    }
+
+    public IntKeyHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public IntKeyHashMap(Map<Integer, ? extends V> map) {
+        this(map.size());
+        putAll(map);
+    }
+
+    public V get(int key) {
+        return getValue(key);
+    }
+
+    public V getOrDefault(int key, V defaultValue) {
+        return getValueOrDefault(key, defaultValue);
+    }
+
+    public boolean containsKey(int key) {
+        return containsPrimitiveKey(key);
+    }
+
+    public V put(int key, V value) {
+        return putValue(key, value);
+    }
+
+    public V remove(int key) {
+        return removeValue(key);
+    }
+
+    public V computeIfAbsent(int key, Function<? super Integer, ? extends V> mappingFunction) {
+        return computeValueIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    boolean isKey(Object key) {
+        return key instanceof Integer;
+    }
+
+    @Override
+    long toPrimitiveKey(Object key) {
+        return ((Integer) key).intValue();
+    }
+
+    @Override
+    Integer toKey(long key) {
+        return (int) key;
+    }
+}
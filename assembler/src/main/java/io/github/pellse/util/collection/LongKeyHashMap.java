@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.util.collection;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Open addressing {@link Map} storing its keys as primitive {@code long} values, avoiding one {@link Long} and
+ * one node per entry and the pointer chasing of {@link HashMap} lookups.
+ *
+ * @param <V> Type of the values
+ */
+public class LongKeyHashMap<V> extends PrimitiveKeyHashMap<Long, V> {
+
+    public LongKeyHashMap() {
+        this(0);
+    }
+
+    public LongKeyHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public LongKeyHashMap(Map<Long, ? extends V> map) {
+        this(map.size());
+        putAll(map);
+    }
+
+    public V get(long key) {
+        return getValue(key);
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        return getValueOrDefault(key, defaultValue);
+    }
+
+    public boolean containsKey(long key) {
+        return containsPrimitiveKey(key);
+    }
+
+    public V put(long key, V value) {
+        return putValue(key, value);
+    }
+
+    public V remove(long key) {
+        return removeValue(key);
+    }
+
+    public V computeIfAbsent(long key, Function<? super Long, ? extends V> mappingFunction) {
+        return computeValueIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    boolean isKey(Object key) {
+        return key instanceof Long;
+    }
+
+    @Override
+    long toPrimitiveKey(Object key) {
+        return ((Long) key).longValue();
+    }
+
+    @Override
+    Long toKey(long key) {
+        return (long) key;
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.util.collection;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Probing and resizing logic shared by {@link LongKeyHashMap} and {@link IntKeyHashMap}, keys are stored
+ * as primitive {@code long} values, narrower key types being widened.
+ *
+ * @param <K> Type of the boxed keys
+ * @param <V> Type of the values
+ */
+abstract class PrimitiveKeyHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final Object FREE = null;
+    private static final Object REMOVED = new Object();
+    private static final Object NULL_VALUE = new Object();
+
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+
+    private int size;
+    private int usedSlots;
+    private int threshold;
+    private int modCount;
+
+    private Set<Entry<K, V>> entrySet;
+
+    PrimitiveKeyHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    abstract boolean isKey(Object key);
+
+    abstract long toPrimitiveKey(Object key);
+
+    abstract K toKey(long key);
+
+    @Override
+    public V get(Object key) {
+        return isKey(key) ? getValue(toPrimitiveKey(key)) : null;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        return isKey(key) ? getValueOrDefault(toPrimitiveKey(key), defaultValue) : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return isKey(key) && containsPrimitiveKey(toPrimitiveKey(key));
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return putValue(toPrimitiveKey(requireNonNull(key, "key cannot be null")), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return isKey(key) ? removeValue(toPrimitiveKey(key)) : null;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return computeValueIfAbsent(toPrimitiveKey(requireNonNull(key, "key cannot be null")), mappingFunction);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, FREE);
+        size = 0;
+        usedSlots = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    PrimitiveKeyHashMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    final V getValue(long key) {
+        final int slot = findSlot(key);
+        return slot < 0 ? null : unmask(values[slot]);
+    }
+
+    final V getValueOrDefault(long key, V defaultValue) {
+        final int slot = findSlot(key);
+        return slot < 0 ? defaultValue : unmask(values[slot]);
+    }
+
+    final boolean containsPrimitiveKey(long key) {
+        return findSlot(key) >= 0;
+    }
+
+    final V putValue(long key, V value) {
+        final int slot = findSlotForInsert(key);
+        if (slot >= 0) {
+            final V oldValue = unmask(values[slot]);
+            values[slot] = mask(value);
+            return oldValue;
+        }
+
+        insert(-slot - 1, key, value);
+        return null;
+    }
+
+    final V removeValue(long key) {
+        final int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+
+        final V oldValue = unmask(values[slot]);
+        removeSlot(slot);
+        return oldValue;
+    }
+
+    final V computeValueIfAbsent(long key, Function<? super K, ? extends V> mappingFunction) {
+        final int slot = findSlotForInsert(key);
+        if (slot >= 0 && values[slot] != NULL_VALUE) {
+            return unmask(values[slot]);
+        }
+
+        final int expectedModCount = modCount;
+        final V value = mappingFunction.apply(toKey(key));
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+
+        if (value != null) {
+            if (slot >= 0) {
+                values[slot] = value;
+            } else {
+                insert(-slot - 1, key, value);
+            }
+        }
+        return value;
+    }
+
+    private int findSlot(long key) {
+        final int mask = keys.length - 1;
+
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            final Object value = values[slot];
+            if (value == FREE) {
+                return -1;
+            }
+            if (value != REMOVED && keys[slot] == key) {
+                return slot;
+            }
+        }
+    }
+
+    // Returns the slot of the key if present, otherwise (-insertionSlot - 1), reusing the first removed slot on the probe sequence
+    private int findSlotForInsert(long key) {
+        final int mask = keys.length - 1;
+        int firstRemoved = -1;
+
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            final Object value = values[slot];
+            if (value == FREE) {
+                return -(firstRemoved >= 0 ? firstRemoved : slot) - 1;
+            }
+            if (value == REMOVED) {
+                if (firstRemoved < 0) {
+                    firstRemoved = slot;
+                }
+            } else if (keys[slot] == key) {
+                return slot;
+            }
+        }
+    }
+
+    private void insert(int slot, long key, V value) {
+        if (values[slot] == FREE) {
+            usedSlots++;
+        }
+
+        keys[slot] = key;
+        values[slot] = mask(value);
+        size++;
+        modCount++;
+
+        if (usedSlots > threshold) {
+            // Only grow if live entries justify it, otherwise rehash in place to purge removed slots
+            rehash(size > threshold / 2 ? keys.length << 1 : keys.length);
+        }
+    }
+
+    private void removeSlot(int slot) {
+        values[slot] = REMOVED;
+        size--;
+        modCount++;
+    }
+
+    private void rehash(int newCapacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+
+        allocate(newCapacity);
+
+        final int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            final Object value = oldValues[i];
+            if (value != FREE && value != REMOVED) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = value;
+            }
+        }
+        usedSlots = size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        final int capacity = (int) Math.ceil(Math.max(expectedSize, 0) / LOAD_FACTOR) + 1;
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(capacity - 1) << 1);
+    }
+
+    private static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static Object mask(Object value) {
+        return value == null ? NULL_VALUE : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unmask(Object value) {
+        return value == NULL_VALUE ? null : (V) value;
+    }
+
+    // Fail-fast like HashMap iterators, structural changes not made through the iterator are detected on a best-effort basis
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private int expectedModCount = modCount;
+        private int nextSlot = advance(0);
+        private int lastSlot = -1;
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < keys.length;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            lastSlot = nextSlot;
+            nextSlot = advance(nextSlot + 1);
+            return new SlotEntry(lastSlot);
+        }
+
+        @Override
+        public void remove() {
+            if (lastSlot < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+
+            removeSlot(lastSlot);
+            lastSlot = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        private int advance(int slot) {
+            while (slot < keys.length && (values[slot] == FREE || values[slot] == REMOVED)) {
+                slot++;
+            }
+            return slot;
+        }
+    }
+
+    private class SlotEntry implements Entry<K, V> {
+
+        private final long key;
+        private int slot;
+        private V value;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+            this.key = keys[slot];
+            this.value = unmask(values[slot]);
+        }
+
+        @Override
+        public K getKey() {
+            return toKey(key);
+        }
+
+        @Override
+        public V getValue() {
+            final int currentSlot = currentSlot();
+            if (currentSlot >= 0) {
+                value = unmask(values[currentSlot]);
+            }
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            final V oldValue = getValue();
+            final int currentSlot = currentSlot();
+            if (currentSlot >= 0) {
+                values[currentSlot] = mask(value);
+            }
+            this.value = value;
+            return oldValue;
+        }
+
+        // The key moves to another slot when the map is rehashed, while the key is absent the entry only keeps its last value
+        private int currentSlot() {
+            if (slot >= 0 && slot < keys.length && keys[slot] == key && values[slot] != FREE && values[slot] != REMOVED) {
+                return slot;
+            }
+            return slot = findSlot(key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> e && Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
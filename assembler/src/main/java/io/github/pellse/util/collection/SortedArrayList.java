@@ -0,0 +1,132 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pellse.util.collection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link ArrayList} whose elements are sorted by {@link #comparator()} when created, the cache then keeps it sorted by
+ * binary insertion (after equal elements) instead of re-sorting it, i.e. O(log n) comparisons plus one array shift per insertion.
+ * <p>
+ * Cached collections are handed to user code, so all {@link ArrayList} operations keep their usual behavior, e.g.
+ * {@link #add(Object)} appends. Any change not made by the cache, including through {@link #set(int, Object)},
+ * {@link #listIterator()} or {@link #subList(int, int)}, clears {@link #isSorted()} and the cache sorts a copy again.
+ */
+public class SortedArrayList<E> extends ArrayList<E> {
+
+    // Below that many elements, binary insertion beats appending then re-sorting the whole list
+    private static final int MAX_BINARY_INSERTIONS = 8;
+
+    private final Comparator<? super E> comparator;
+
+    private boolean sorted = true;
+    private int sortedModCount;
+
+    public SortedArrayList(Comparator<? super E> comparator) {
+        this.comparator = requireNonNull(comparator, "comparator cannot be null");
+    }
+
+    public SortedArrayList(Comparator<? super E> comparator, int initialCapacity) {
+        super(initialCapacity);
+        this.comparator = requireNonNull(comparator, "comparator cannot be null");
+    }
+
+    public SortedArrayList(Comparator<? super E> comparator, Collection<? extends E> coll) {
+        super(coll);
+        this.comparator = requireNonNull(comparator, "comparator cannot be null");
+        super.sort(comparator);
+        sortedModCount = modCount;
+    }
+
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * @return false once this list was modified other than by the cache, its elements may then no longer be sorted
+     */
+    public boolean isSorted() {
+        return sorted && sortedModCount == modCount;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        sorted = false;
+        return super.set(index, element);
+    }
+
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        // Sub lists write through without going through this list
+        sorted = false;
+        return super.subList(fromIndex, toIndex);
+    }
+
+    /**
+     * Inserts an element at the position found by binary search, after equal elements
+     */
+    void insert(E element) {
+        final boolean wasSorted = isSorted();
+        super.add(insertionPoint(element), element);
+        keepSorted(wasSorted);
+    }
+
+    void insertAll(Collection<? extends E> coll) {
+        if (coll.size() <= MAX_BINARY_INSERTIONS) {
+            coll.forEach(this::insert);
+        } else {
+            final boolean wasSorted = isSorted();
+            super.addAll(coll);
+            super.sort(comparator);
+            keepSorted(wasSorted);
+        }
+    }
+
+    /**
+     * Appends an element already known to sort after every element of this list, e.g. when copying another sorted list
+     */
+    void append(E element) {
+        final boolean wasSorted = isSorted();
+        super.add(element);
+        keepSorted(wasSorted);
+    }
+
+    private void keepSorted(boolean wasSorted) {
+        sorted = wasSorted;
+        sortedModCount = modCount;
+    }
+
+    private int insertionPoint(E element) {
+        int low = 0;
+        int high = size();
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (comparator.compare(get(mid), element) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -18,6 +18,7 @@ package io.github.pellse.util.lookup;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static io.github.pellse.util.ObjectUtils.also;
 import static java.util.Collections.emptyList;
@@ -29,8 +30,12 @@ public interface LookupTable<K, V> {
     List<V> get(K key);
 
     static <K, V> LookupTable<K, V> lookupTable() {
+        return lookupTable(HashMap::new);
+    }
+
+    static <K, V> LookupTable<K, V> lookupTable(Supplier<Map<K, List<V>>> mapSupplier) {
 
-        final Map<K, List<V>> map = new HashMap<>();
+        final Map<K, List<V>> map = mapSupplier.get();
 
         return new LookupTable<>() {
 
@@ -47,6 +52,10 @@ public interface LookupTable<K, V> {
     }
 
     static <T, K, V> LookupTable<K, V> lookupTableFrom(Iterable<T> elements, Function<? super T, ? extends K> keyMapper, Function<? super T, ? extends V> valueMapper) {
-        return also(lookupTable(), lookupTable -> elements.forEach(e -> lookupTable.put(keyMapper.apply(e), valueMapper.apply(e))));
+        return lookupTableFrom(elements, keyMapper, valueMapper, HashMap::new);
+    }
+
+    static <T, K, V> LookupTable<K, V> lookupTableFrom(Iterable<T> elements, Function<? super T, ? extends K> keyMapper, Function<? super T, ? extends V> valueMapper, Supplier<Map<K, List<V>>> mapSupplier) {
+        return also(lookupTable(mapSupplier), lookupTable -> elements.forEach(e -> lookupTable.put(keyMapper.apply(e), valueMapper.apply(e))));
     }
 }
\ No newline at end of file
@@ -17,28 +17,51 @@
 package io.github.pellse.assembler.test;
 
 import io.github.pellse.assembler.Assembler;
+import io.github.pellse.assembler.MapFactory;
 import io.github.pellse.assembler.util.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static io.github.pellse.assembler.AssemblerBuilder.assemblerOf;
 import static io.github.pellse.assembler.FluxAdapter.fluxAdapter;
+import static io.github.pellse.assembler.FluxAdapter.windowedFluxAdapter;
+import static io.github.pellse.assembler.MapFactory.longKeyMapFactory;
 import static io.github.pellse.assembler.QueryUtils.toPublisher;
 import static io.github.pellse.assembler.Rule.rule;
+import static io.github.pellse.assembler.Rule.ruleBuilder;
+import static io.github.pellse.assembler.RuleContext.longKeyRuleContext;
 import static io.github.pellse.assembler.RuleMapper.oneToMany;
 import static io.github.pellse.assembler.RuleMapper.oneToOne;
+import static io.github.pellse.assembler.RuleMapperSource.call;
+import static io.github.pellse.assembler.RuleMapperSource.coalesce;
 import static io.github.pellse.assembler.RuleMapperSource.from;
 import static io.github.pellse.assembler.test.AssemblerTestUtils.*;
+import static io.github.pellse.concurrent.ConcurrencyLimiter.UNBOUNDED_QUEUE;
+import static io.github.pellse.concurrent.ConcurrencyLimiter.concurrencyLimiter;
 import static io.github.pellse.util.collection.CollectionUtils.transform;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static reactor.core.scheduler.Schedulers.immediate;
 
 public class AssemblerJavaTest {
@@ -126,6 +149,57 @@ public class AssemblerJavaTest {
                 .verify();
     }
 
+    @Test
+    public void testAssemblerBuilderWithWindowedFluxAdapter() {
+
+        StepVerifier.create(
+                        assemblerOf(Transaction.class)
+                                .withCorrelationIdResolver(Customer::customerId)
+                                .withRules(
+                                        rule(BillingInfo::customerId, oneToOne(this::getBillingInfo, BillingInfo::new)),
+                                        rule(OrderItem::customerId, oneToMany(OrderItem::id, this::getAllOrders)),
+                                        Transaction::new)
+                                .build(windowedFluxAdapter(2))
+                                .assemble(getCustomers())
+                )
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(3, billingInvocationCount.get());
+        assertEquals(3, ordersInvocationCount.get());
+    }
+
+    @Test
+    public void testAssemblerBuilderWithWindowedFluxAdapterSharingConcurrencyLimiters() {
+
+        Function<List<Customer>, Publisher<OrderItem>> getAllOrders = customers -> getAllOrders(customers)
+                .delaySubscription(ofMillis(200));
+
+        // Windows are assembled concurrently, the second window is rejected while the first one holds the only order items permit
+        StepVerifier.create(
+                        assemblerOf(Transaction.class)
+                                .withCorrelationIdResolver(Customer::customerId)
+                                .withRules(
+                                        rule(BillingInfo::customerId, oneToOne(this::getBillingInfo, BillingInfo::new)),
+                                        rule(OrderItem::customerId, oneToMany(OrderItem::id, getAllOrders)),
+                                        Transaction::new)
+                                .build(windowedFluxAdapter(1, 2, true, fluxAdapter(() -> concurrencyLimiter(1, 0), null)))
+                                .assemble(Flux.just(customer1, customer2)))
+                .expectError(RejectedExecutionException.class)
+                .verify(ofSeconds(5));
+    }
+
+    @Test
+    public void testWindowedFluxAdapterValidation() {
+
+        assertThrows(IllegalArgumentException.class, () -> windowedFluxAdapter(0));
+        assertThrows(IllegalArgumentException.class, () -> windowedFluxAdapter(2, 0, true));
+        assertThrows(IllegalArgumentException.class, () -> windowedFluxAdapter(-1, ofMillis(100)));
+        assertThrows(NullPointerException.class, () -> windowedFluxAdapter((Duration) null));
+    }
+
     @Test
     public void testAssemblerBuilderWithFluxWithError() {
 
@@ -238,6 +312,53 @@ public class AssemblerJavaTest {
                 .verify();
     }
 
+    @Test
+    public void testAssemblerBuilderWithRawRulesKeepingJoinedResults() {
+
+        StepVerifier.create(
+                        assemblerOf(List.class)
+                                .withCorrelationIdResolver(Customer::customerId)
+                                .withRules(
+                                        List.of(rule(BillingInfo::customerId, oneToOne(this::getBillingInfo, BillingInfo::new)),
+                                                rule(OrderItem::customerId, oneToMany(OrderItem::id, this::getAllOrders))),
+                                        (customer, joinedResults) -> Arrays.asList(joinedResults))
+                                .build()
+                                .assemble(getCustomers())
+                                .collectList()
+                )
+                .expectNext(List.of(
+                        List.of(billingInfo1, List.of(orderItem11, orderItem12, orderItem13)),
+                        List.of(billingInfo2Unknown, List.of(orderItem21, orderItem22)),
+                        List.of(billingInfo3, List.of()),
+                        List.of(billingInfo1, List.of(orderItem11, orderItem12, orderItem13)),
+                        List.of(billingInfo2Unknown, List.of(orderItem21, orderItem22)),
+                        List.of(billingInfo3, List.of())))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    public void testAssemblerBuilderWithNullHostileMapFactory() {
+
+        MapFactory<Long, BillingInfo> nullHostileMapFactory = ConcurrentHashMap::new;
+
+        Transaction transaction2WithoutBillingInfo = new Transaction(customer2, null, List.of(orderItem21, orderItem22));
+
+        StepVerifier.create(
+                        assemblerOf(Transaction.class)
+                                .withCorrelationIdResolver(Customer::customerId)
+                                .withRules(
+                                        rule(BillingInfo::customerId, ArrayList::new, nullHostileMapFactory, oneToOne(this::getBillingInfo)),
+                                        rule(OrderItem::customerId, oneToMany(OrderItem::id, this::getAllOrders)),
+                                        Transaction::new)
+                                .build()
+                                .assemble(getCustomers())
+                )
+                .expectNext(transaction1, transaction2WithoutBillingInfo, transaction3, transaction1, transaction2WithoutBillingInfo, transaction3)
+                .expectComplete()
+                .verify();
+    }
+
     @Test
     public void testReusableAssemblerBuilderWithFluxWithLists() {
 
@@ -260,4 +381,215 @@ public class AssemblerJavaTest {
         assertEquals(2, billingInvocationCount.get());
         assertEquals(2, ordersInvocationCount.get());
     }
+
+    @Test
+    public void testReusableAssemblerBuilderWithConcurrencyLimiter() {
+
+        var inFlightQueries = new AtomicInteger();
+        var maxInFlightQueries = new AtomicInteger();
+
+        Function<List<Customer>, Publisher<OrderItem>> getAllOrders = customers -> getAllOrders(customers)
+                .delayElements(ofMillis(10))
+                .doOnSubscribe(__ -> maxInFlightQueries.accumulateAndGet(inFlightQueries.incrementAndGet(), Math::max))
+                .doFinally(__ -> inFlightQueries.decrementAndGet());
+
+        Assembler<Customer, Transaction> assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(this::getBillingInfo, BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, getAllOrders)),
+                        Transaction::new)
+                .build(() -> concurrencyLimiter(1), concurrencyLimiter(2));
+
+        StepVerifier.create(getCustomers()
+                        .window(1)
+                        .flatMapSequential(assembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(1, maxInFlightQueries.get());
+        assertEquals(6, ordersInvocationCount.get());
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithConcurrencyLimiterSheddingLoad() {
+
+        Function<List<Customer>, Publisher<OrderItem>> getAllOrders = customers -> getAllOrders(customers)
+                .delaySubscription(ofMillis(200));
+
+        Assembler<Customer, Transaction> assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(this::getBillingInfo, BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, getAllOrders)),
+                        Transaction::new)
+                .build(() -> concurrencyLimiter(1, 0), null);
+
+        // No wait queue, the second assemble() call is rejected while the first one holds the only order items permit
+        StepVerifier.create(Flux.merge(assembler.assemble(Flux.just(customer1)), assembler.assemble(Flux.just(customer2))))
+                .expectError(RejectedExecutionException.class)
+                .verify(ofSeconds(5));
+    }
+
+    @Test
+    public void testConcurrencyLimiterTimingOutQueuedRequest() {
+
+        var limiter = concurrencyLimiter(1, UNBOUNDED_QUEUE, ofMillis(50));
+        var permitHolder = limiter.limit(Mono.never()).subscribe();
+
+        StepVerifier.create(limiter.limit(Mono.just(1)))
+                .expectError(TimeoutException.class)
+                .verify(ofSeconds(5));
+
+        assertEquals(1, limiter.inFlight());
+        assertEquals(0, limiter.queueDepth());
+
+        permitHolder.dispose();
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    public void testConcurrencyLimiterReleasingPermitOnCancel() {
+
+        var limiter = concurrencyLimiter(1);
+        var permitHolder = limiter.limit(Mono.never()).subscribe();
+        var queuedRequest = limiter.limit(Mono.never()).subscribe();
+
+        assertEquals(1, limiter.inFlight());
+        assertEquals(1, limiter.queueDepth());
+
+        queuedRequest.dispose();
+        assertEquals(0, limiter.queueDepth());
+
+        // Cancelling the permit holder hands its permit over to the next queued request
+        StepVerifier.create(limiter.limit(Mono.just(1)))
+                .then(permitHolder::dispose)
+                .expectNext(1)
+                .expectComplete()
+                .verify(ofSeconds(5));
+
+        assertEquals(0, limiter.inFlight());
+        assertEquals(0, limiter.queueDepth());
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithCoalescedQueries() {
+
+        Assembler<Customer, Transaction> assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(coalesce(this::getBillingInfo, 100, ofMillis(100)), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, coalesce(this::getAllOrders, 100, ofMillis(100)))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(getCustomers()
+                        .window(1)
+                        .flatMap(assembler::assemble))
+                .expectSubscription()
+                .recordWith(HashSet::new)
+                .expectNextCount(6)
+                .consumeRecordedWith(transactions -> assertEquals(Set.of(transaction1, transaction2, transaction3), transactions))
+                .expectComplete()
+                .verify();
+
+        assertEquals(1, billingInvocationCount.get());
+        assertEquals(1, ordersInvocationCount.get());
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithCoalescedQueriesThrowingSynchronously() {
+
+        Function<List<Customer>, Publisher<BillingInfo>> getBillingInfo = customers -> {
+            throw new IllegalStateException("Synchronous failure");
+        };
+
+        Assembler<Customer, Transaction> assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(coalesce(getBillingInfo, 100, ofMillis(100)), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, this::getAllOrders)),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(assembler.assemble(getCustomers()))
+                .expectErrorMatches(e -> e instanceof IllegalStateException && "Synchronous failure".equals(e.getMessage()))
+                .verify(ofSeconds(5));
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithCoalescedQueriesSplitByMaxBatchSize() {
+
+        var batchSizes = new ArrayList<Integer>();
+
+        Function<List<Customer>, Publisher<OrderItem>> getAllOrders = customers -> {
+            synchronized (batchSizes) {
+                batchSizes.add(customers.size());
+            }
+            return getAllOrders(customers);
+        };
+
+        Assembler<Customer, Transaction> assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(this::getBillingInfo, BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, coalesce(getAllOrders, 2, ofMillis(100)))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(assembler.assemble(getCustomers()))
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify(ofSeconds(5));
+
+        assertEquals(List.of(2, 1), batchSizes);
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithChunkedQueries() {
+
+        Function<List<Long>, Publisher<BillingInfo>> getBillingInfo = customerIds -> Flux.from(AssemblerTestUtils.getBillingInfo(customerIds))
+                .doOnComplete(billingInvocationCount::incrementAndGet);
+
+        Function<List<Long>, Publisher<OrderItem>> getAllOrders = customerIds -> Flux.from(AssemblerTestUtils.getAllOrders(customerIds))
+                .doOnComplete(ordersInvocationCount::incrementAndGet);
+
+        Assembler<Customer, Transaction> assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(call(getBillingInfo, 2), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, call(getAllOrders, 1, 2))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(assembler.assemble(getCustomers()))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(2, billingInvocationCount.get());
+        assertEquals(3, ordersInvocationCount.get());
+    }
+
+    @Test
+    public void testAssemblerBuilderWithLongKeyMapFactory() {
+
+        StepVerifier.create(
+                        assemblerOf(Transaction.class)
+                                .withCorrelationIdResolver(Customer::customerId)
+                                .withRules(
+                                        ruleBuilder(longKeyRuleContext(BillingInfo::customerId), oneToOne(this::getBillingInfo, BillingInfo::new)),
+                                        rule(OrderItem::customerId, ArrayList::new, longKeyMapFactory(), oneToMany(OrderItem::id, this::getAllOrders)),
+                                        Transaction::new)
+                                .build()
+                                .assemble(getCustomers())
+                )
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+    }
 }
@@ -17,31 +17,52 @@
 package io.github.pellse.assembler.test;
 
 import io.github.pellse.assembler.Assembler;
+import io.github.pellse.assembler.LifeCycleEventSource;
 import io.github.pellse.assembler.Rule;
+import io.github.pellse.assembler.WindowingStrategy;
+import io.github.pellse.assembler.caching.BoundedCacheFactory;
+import io.github.pellse.assembler.caching.BoundedCacheFactory.BoundedCacheConfig;
+import io.github.pellse.assembler.caching.Cache;
 import io.github.pellse.assembler.caching.CacheContext.OneToManyCacheContext;
 import io.github.pellse.assembler.caching.CacheContext.OneToOneCacheContext;
 import io.github.pellse.assembler.caching.CacheFactory;
 import io.github.pellse.assembler.caching.CacheFactory.CacheTransformer;
+import io.github.pellse.assembler.caching.ObservableCacheFactory;
 import io.github.pellse.assembler.util.*;
+import io.github.pellse.concurrent.FairnessPolicy;
+import io.github.pellse.concurrent.ReactiveGuard;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Scheduler;
 import reactor.test.StepVerifier;
 
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static io.github.pellse.assembler.AssemblerBuilder.assemblerOf;
@@ -50,18 +71,45 @@ import static io.github.pellse.assembler.QueryUtils.toPublisher;
 import static io.github.pellse.assembler.Rule.rule;
 import static io.github.pellse.assembler.RuleMapper.*;
 import static io.github.pellse.assembler.RuleMapperSource.call;
-import static io.github.pellse.assembler.caching.StreamTableFactory.streamTable;
-import static io.github.pellse.assembler.caching.StreamTableFactoryBuilder.streamTableBuilder;
+import static io.github.pellse.assembler.WindowingStrategy.adaptiveWindowingStrategy;
+import static io.github.pellse.assembler.caching.BoundedCacheFactory.boundedCache;
+import static io.github.pellse.assembler.caching.Cache.adapterCache;
 import static io.github.pellse.assembler.caching.CacheFactory.*;
+import static io.github.pellse.assembler.caching.CacheFactory.NegativeCacheConfig.negativeCacheConfig;
+import static io.github.pellse.assembler.caching.ConcurrentCache.ConcurrencyConfig.concurrencyConfig;
+import static io.github.pellse.assembler.caching.ConcurrentCache.concurrentCache;
 import static io.github.pellse.assembler.caching.ConcurrentCacheFactory.concurrent;
+import static io.github.pellse.assembler.caching.MapperCacheFactory.MappingMode.COPY_ON_CHANGE;
+import static io.github.pellse.assembler.caching.MapperCacheFactory.MappingMode.IN_PLACE;
+import static io.github.pellse.assembler.caching.MapperCacheFactory.mapper;
+import static io.github.pellse.assembler.caching.SnapshotCacheFactory.readSnapshot;
+import static io.github.pellse.assembler.caching.SnapshotCacheFactory.snapshot;
+import static io.github.pellse.assembler.caching.SnapshotCacheFactory.snapshotTimestamp;
+import static io.github.pellse.assembler.caching.SnapshotCodec.listCodec;
+import static io.github.pellse.assembler.caching.SnapshotCodec.longCodec;
+import static io.github.pellse.assembler.caching.SnapshotCodec.snapshotCodec;
+import static io.github.pellse.assembler.caching.StreamTableFactory.OverflowPolicy.BLOCK;
+import static io.github.pellse.assembler.caching.StreamTableFactory.OverflowPolicy.INVALIDATE;
+import static io.github.pellse.assembler.caching.StreamTableFactory.streamTable;
+import static io.github.pellse.assembler.caching.StreamTableFactoryBuilder.streamTableBuilder;
+import static io.github.pellse.assembler.caching.StreamTableMetrics.streamTableMetrics;
 import static io.github.pellse.assembler.test.CDCAdd.cdcAdd;
 import static io.github.pellse.assembler.test.CDCDelete.cdcDelete;
 import static io.github.pellse.assembler.test.AssemblerTestUtils.*;
+import static io.github.pellse.concurrent.LockMetrics.lockMetrics;
+import static io.github.pellse.concurrent.LockMetricsListener.LockMode.READ;
+import static io.github.pellse.concurrent.LockMetricsListener.LockMode.WRITE;
 import static io.github.pellse.util.ObjectUtils.run;
 import static io.github.pellse.util.collection.CollectionUtils.transform;
 import static java.time.Duration.*;
+import static java.util.Comparator.comparing;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static reactor.core.publisher.Mono.defer;
 import static reactor.core.publisher.Mono.error;
 import static reactor.core.scheduler.Schedulers.*;
 
@@ -231,6 +279,11 @@ public class CacheTest {
                 .doOnComplete(billingInvocationCount::incrementAndGet);
     }
 
+    // Requests a single event at a time and delays it, the buffer upstream then fills up when events are emitted faster
+    private static <T> WindowingStrategy<T> delayedWindowingStrategy(Duration delay) {
+        return flux -> flux.concatMap(event -> Mono.just(event).delayElement(delay), 0).window(1);
+    }
+
     private Publisher<OrderItem> getAllOrders(List<Customer> customers) {
 
         var customerIds = transform(customers, Customer::customerId);
@@ -321,6 +374,356 @@ public class CacheTest {
         assertEquals(1, ordersInvocationCount.get(), "OrderItem error");
     }
 
+    @Test
+    public void testReusableAssemblerBuilderWithCacheSnapshot(@TempDir Path snapshotDirectory) {
+
+        var snapshotFile = snapshotDirectory.resolve("orderItems.snapshot");
+
+        var orderItemCodec = snapshotCodec(
+                (OrderItem orderItem, DataOutput out) -> {
+                    out.writeUTF(orderItem.id());
+                    out.writeLong(orderItem.customerId());
+                    out.writeUTF(orderItem.orderDescription());
+                    out.writeDouble(orderItem.price());
+                },
+                in -> new OrderItem(in.readUTF(), in.readLong(), in.readUTF(), in.readDouble()));
+
+        Function<LifeCycleEventSource, Assembler<Customer, Transaction>> assemblerFactory = lifeCycleEventSource -> assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(this::getBillingInfo), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(this::getAllOrders,
+                                snapshot(snapshotFile, longCodec(), listCodec(orderItemCodec), ofMinutes(1), false, lifeCycleEventSource)))),
+                        Transaction::new)
+                .build();
+
+        var lifeCycleEventBroadcaster = lifeCycleEventBroadcaster();
+        var assembler = assemblerFactory.apply(lifeCycleEventBroadcaster);
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .delayElements(ofMillis(100))
+                        .flatMapSequential(assembler::assemble)
+                        .doOnSubscribe(run(lifeCycleEventBroadcaster::start))
+                        .doFinally(run(lifeCycleEventBroadcaster::stop)))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(1, ordersInvocationCount.get());
+
+        // Stopped on a non-blocking thread, the last snapshot is written in the background
+        StepVerifier.create(Mono.fromCallable(() -> readSnapshot(snapshotFile, longCodec(), listCodec(orderItemCodec)).orElse(null))
+                        .repeatWhenEmpty(repeat -> repeat.delayElements(ofMillis(50))))
+                .assertNext(snapshot -> assertEquals(
+                        Map.of(1L, List.of(orderItem11, orderItem12, orderItem13), 2L, List.of(orderItem21, orderItem22), 3L, List.of()),
+                        snapshot.entries()))
+                .expectComplete()
+                .verify(ofSeconds(5));
+
+        assertTrue(snapshotTimestamp(snapshotFile).isPresent());
+
+        // Never started, the restored cache is loaded while the assembler is built and no periodic snapshot is taken
+        var restoredAssembler = assemblerFactory.apply(lifeCycleEventBroadcaster());
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .flatMapSequential(restoredAssembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(1, ordersInvocationCount.get());
+    }
+
+    @Test
+    public void testCacheSnapshotWrittenBeforeStopReturns(@TempDir Path snapshotDirectory) {
+
+        var snapshotFile = snapshotDirectory.resolve("orderItems.snapshot");
+
+        var orderItemCodec = snapshotCodec(
+                (OrderItem orderItem, DataOutput out) -> {
+                    out.writeUTF(orderItem.id());
+                    out.writeLong(orderItem.customerId());
+                    out.writeUTF(orderItem.orderDescription());
+                    out.writeDouble(orderItem.price());
+                },
+                in -> new OrderItem(in.readUTF(), in.readLong(), in.readUTF(), in.readDouble()));
+
+        var lifeCycleEventBroadcaster = lifeCycleEventBroadcaster();
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(this::getBillingInfo, BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(this::getAllOrders,
+                                snapshot(snapshotFile, longCodec(), listCodec(orderItemCodec), ofMinutes(1), lifeCycleEventBroadcaster)))),
+                        Transaction::new)
+                .build();
+
+        lifeCycleEventBroadcaster.start();
+
+        StepVerifier.create(assembler.assemble(Flux.just(customer1, customer2, customer3)))
+                .expectNext(transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        lifeCycleEventBroadcaster.stop();
+
+        // Stopped on a blocking thread, the last snapshot is written before stop() returns
+        assertEquals(
+                Map.of(1L, List.of(orderItem11, orderItem12, orderItem13), 2L, List.of(orderItem21, orderItem22), 3L, List.of()),
+                readSnapshot(snapshotFile, longCodec(), listCodec(orderItemCodec)).orElseThrow().entries());
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithBoundedCache() {
+
+        Function<List<Long>, Publisher<BillingInfo>> getBillingInfo = customerIds ->
+                Flux.just(billingInfo1, billingInfo3)
+                        .filter(billingInfo -> customerIds.contains(billingInfo.customerId()))
+                        .doOnComplete(billingInvocationCount::incrementAndGet);
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(call(getBillingInfo), boundedCache(10)), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(this::getAllOrders, boundedCache(10, ofMinutes(5))))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .delayElements(ofMillis(100))
+                        .flatMapSequential(assembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(1, billingInvocationCount.get(), "BillingInfo error");
+        assertEquals(1, ordersInvocationCount.get(), "OrderItem error");
+    }
+
+    @Test
+    public void testBoundedCacheEvictionAndExpiration() {
+
+        var time = new AtomicLong();
+
+        var cache = BoundedCacheFactory.<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>>boundedCache(
+                        BoundedCacheConfig.<BillingInfo>boundedCacheConfig()
+                                .withMaxSize(2)
+                                .withExpireAfterWrite(ofSeconds(10))
+                                .withTicker(time::get))
+                .create(null);
+
+        StepVerifier.create(cache.putAll(Map.of(1L, billingInfo1, 2L, billingInfo2))
+                        .then(cache.getAll(List.of(1L)))
+                        .then(cache.putAll(Map.of(3L, billingInfo3)))
+                        .then(cache.getAll(List.of(1L, 2L, 3L))))
+                .expectNext(Map.of(1L, billingInfo1, 3L, billingInfo3))
+                .expectComplete()
+                .verify();
+
+        time.addAndGet(ofSeconds(10).toNanos());
+
+        StepVerifier.create(cache.getAll(List.of(1L, 2L, 3L)))
+                .expectNext(Map.of())
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    public void testCacheMergeAll() {
+
+        var updatedBillingInfo2 = new BillingInfo(2, 2L, "4540222222222222");
+
+        List<Cache<Long, BillingInfo>> caches = List.of(
+                CacheFactory.<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>>cache().create(null),
+                BoundedCacheFactory.<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>>boundedCache(10).create(null),
+                concurrentCache(CacheFactory.<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>>cache().create(null), 4));
+
+        for (var cache : caches) {
+            StepVerifier.create(cache.putAll(Map.of(1L, billingInfo1, 2L, billingInfo2))
+                            .then(cache.mergeAll(
+                                    Map.of(1L, billingInfo1, 2L, updatedBillingInfo2, 3L, billingInfo3),
+                                    (id, existingValue, incomingValue) -> id == 1L ? null : existingValue != null ? incomingValue : billingInfo2Unknown))
+                            .then(cache.getAll(List.of(1L, 2L, 3L))))
+                    .expectNext(Map.of(2L, updatedBillingInfo2, 3L, billingInfo2Unknown))
+                    .expectComplete()
+                    .verify();
+        }
+    }
+
+    @Test
+    public void testCacheRetriesLoadCancelledByOwner() {
+
+        Cache<Long, BillingInfo> cache = CacheFactory.<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>>cache().create(null);
+
+        var owner = cache.computeAll(List.of(1L), ids -> Mono.never()).subscribe();
+        var waiter = cache.computeAll(List.of(1L), ids -> Mono.just(Map.of(1L, billingInfo1)));
+
+        StepVerifier.create(waiter)
+                .then(owner::dispose)
+                .expectNext(Map.of(1L, billingInfo1))
+                .expectComplete()
+                .verify(ofSeconds(5));
+    }
+
+    @Test
+    public void testCachePutAllCompletesPendingLoad() {
+
+        var updatedBillingInfo1 = new BillingInfo(1, 1L, "4540111111111111");
+
+        Cache<Long, BillingInfo> cache = CacheFactory.<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>>cache().create(null);
+
+        var fetchResult = Sinks.<Map<Long, BillingInfo>>one();
+
+        var owner = cache.computeAll(List.of(1L), ids -> fetchResult.asMono());
+        var waiter = cache.getAll(List.of(1L));
+
+        StepVerifier.create(Flux.merge(owner, waiter))
+                .then(() -> cache.putAll(Map.of(1L, updatedBillingInfo1)).subscribe())
+                .then(() -> fetchResult.tryEmitValue(Map.of(1L, billingInfo1)))
+                .expectNext(Map.of(1L, updatedBillingInfo1), Map.of(1L, updatedBillingInfo1))
+                .expectComplete()
+                .verify(ofSeconds(5));
+
+        StepVerifier.create(cache.getAll(List.of(1L)))
+                .expectNext(Map.of(1L, updatedBillingInfo1))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    public void testMapperCacheMappingModes() {
+
+        var updatedBillingInfo2 = new BillingInfo(2, 2L, "4540222222222222");
+
+        var putMaps = new ArrayList<Map<Long, BillingInfo>>();
+        var fetchedMap = new HashMap<>(Map.of(1L, billingInfo1, 2L, billingInfo2));
+        var putMap = Map.of(1L, billingInfo1, 3L, billingInfo3);
+
+        CacheFactory<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>> delegateCacheFactory = context -> adapterCache(
+                ids -> Mono.just(Map.of()),
+                (ids, fetchFunction) -> fetchFunction.apply(ids),
+                map -> Mono.fromRunnable(() -> putMaps.add(map)),
+                map -> Mono.empty());
+
+        Function<OneToOneCacheContext<Long, BillingInfo>, BiFunction<Long, BillingInfo, BillingInfo>> mappingFunction =
+                __ -> (id, billingInfo) -> id == 2L ? updatedBillingInfo2 : billingInfo;
+
+        var copyOnChangeCache = mapper(delegateCacheFactory, mappingFunction, COPY_ON_CHANGE).create(null);
+        var inPlaceCache = mapper(delegateCacheFactory, mappingFunction, IN_PLACE).create(null);
+
+        StepVerifier.create(copyOnChangeCache.putAll(putMap)
+                        .then(inPlaceCache.computeAll(List.of(1L, 2L), ids -> Mono.just(fetchedMap))))
+                .expectNextMatches(map -> map == fetchedMap && map.equals(Map.of(1L, billingInfo1, 2L, updatedBillingInfo2)))
+                .expectComplete()
+                .verify();
+
+        assertSame(putMap, putMaps.get(0));
+    }
+
+    @Test
+    public void testCacheWithNegativeCaching() {
+
+        var ticker = new AtomicLong();
+        var fetchedIds = new ArrayList<Long>();
+
+        Cache<Long, BillingInfo> cache = CacheFactory.<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>>cache(
+                negativeCacheConfig(ofSeconds(10), 2).withTicker(ticker::get)).create(null);
+
+        Function<List<Long>, Mono<Map<Long, BillingInfo>>> computeAll = ids -> cache.computeAll(ids, idsToFetch -> {
+            idsToFetch.forEach(fetchedIds::add);
+            return Mono.just(Map.of(1L, billingInfo1));
+        });
+
+        StepVerifier.create(computeAll.apply(List.of(1L, 2L))
+                        .then(Mono.defer(() -> computeAll.apply(List.of(1L, 2L)))))
+                .expectNext(Map.of(1L, billingInfo1))
+                .expectComplete()
+                .verify();
+
+        assertEquals(List.of(1L, 2L), fetchedIds);
+
+        ticker.set(ofSeconds(10).toNanos());
+
+        StepVerifier.create(computeAll.apply(List.of(2L, 3L, 4L))
+                        .then(Mono.defer(() -> computeAll.apply(List.of(2L, 3L, 4L)))))
+                .expectNext(Map.of())
+                .expectComplete()
+                .verify();
+
+        assertEquals(List.of(1L, 2L, 2L, 3L, 4L, 2L), fetchedIds);
+    }
+
+    @Test
+    public void testCacheWithNegativeCachingMissExpireReMissCycles() {
+
+        var ticker = new AtomicLong();
+        var fetchedIds = new ArrayList<Long>();
+
+        Cache<Long, BillingInfo> cache = CacheFactory.<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>>cache(
+                negativeCacheConfig(ofSeconds(10), 2).withTicker(ticker::get)).create(null);
+
+        Function<List<Long>, Mono<Map<Long, BillingInfo>>> computeAll = ids -> cache.computeAll(ids, idsToFetch -> {
+            idsToFetch.forEach(fetchedIds::add);
+            return Mono.empty();
+        });
+
+        for (int cycle = 0; cycle < 5; cycle++) {
+            fetchedIds.clear();
+
+            StepVerifier.create(computeAll.apply(List.of(2L, 3L))
+                            .then(Mono.defer(() -> cache.putAll(Map.of(3L, billingInfo3))))
+                            .then(Mono.defer(() -> cache.removeAll(Map.of(3L, billingInfo3))))
+                            .then(Mono.defer(() -> computeAll.apply(List.of(4L))))
+                            .then(Mono.defer(() -> computeAll.apply(List.of(2L, 4L)))))
+                    .expectNext(Map.of())
+                    .expectComplete()
+                    .verify();
+
+            assertEquals(List.of(2L, 3L, 4L), fetchedIds.stream().sorted().toList());
+
+            ticker.addAndGet(ofSeconds(10).toNanos());
+        }
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithCachingSharingInFlightQueries() {
+
+        Function<List<Long>, Publisher<BillingInfo>> getBillingInfo = customerIds ->
+                Flux.just(billingInfo1, billingInfo3)
+                        .filter(billingInfo -> customerIds.contains(billingInfo.customerId()))
+                        .delaySubscription(ofMillis(200))
+                        .doOnComplete(billingInvocationCount::incrementAndGet);
+
+        Function<List<Customer>, Publisher<OrderItem>> getAllOrders = customers -> Flux.from(getAllOrders(customers))
+                .delaySubscription(ofMillis(200));
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(call(getBillingInfo)), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(getAllOrders))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .flatMapSequential(assembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(1, billingInvocationCount.get(), "BillingInfo error");
+        assertEquals(1, ordersInvocationCount.get(), "OrderItem error");
+    }
+
     @Test
     public void testReusableAssemblerBuilderWithConcurrentCaching() {
 
@@ -345,6 +748,120 @@ public class CacheTest {
         assertEquals(1, ordersInvocationCount.get());
     }
 
+    @Test
+    public void testReusableAssemblerBuilderWithStripedConcurrentCaching() {
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(this::getBillingInfo, concurrent(4)), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(this::getAllOrders, cache(), concurrent(4)))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .delayElements(ofMillis(100))
+                        .flatMapSequential(assembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(1, billingInvocationCount.get());
+        assertEquals(1, ordersInvocationCount.get());
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithOptimisticReadsConcurrentCaching() {
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(this::getBillingInfo, concurrent(concurrencyConfig().withOptimisticReads())), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(this::getAllOrders, cache(), concurrent(concurrencyConfig().withStripes(4).withOptimisticReads())))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .delayElements(ofMillis(100))
+                        .flatMapSequential(assembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(1, billingInvocationCount.get());
+        assertEquals(1, ordersInvocationCount.get());
+    }
+
+    @Test
+    @Timeout(30)
+    public void testStripedConcurrentCacheWithOverlappingReadsAndWrites() {
+
+        final Function<Integer, List<Long>> idsOf = i -> LongStream.range(i, i + 8).boxed().toList();
+
+        for (var fairnessPolicy : FairnessPolicy.values()) {
+
+            final var cache = concurrentCache(
+                    CacheFactory.<Long, Long, Long, OneToOneCacheContext<Long, Long>>cache().create(null),
+                    concurrencyConfig().withStripes(4).withFairnessPolicy(fairnessPolicy));
+
+            StepVerifier.create(Flux.range(0, 500)
+                            .flatMap(i -> i % 3 == 0
+                                    ? cache.putAll(idsOf.apply(i % 50).stream().collect(toMap(identity(), identity())))
+                                    : cache.computeAll(idsOf.apply(i % 50), ids -> Flux.<Long>fromIterable(ids).collectMap(identity(), identity()).subscribeOn(parallel())))
+                            .then(defer(() -> cache.getAll(idsOf.apply(0)))))
+                    .expectNextMatches(map -> map.size() == 8)
+                    .expectComplete()
+                    .verify();
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void testReactiveGuardTimeoutReleasesLock() {
+
+        final var reactiveGuard = ReactiveGuard.create();
+
+        StepVerifier.create(reactiveGuard.withLock(Mono.<Integer>never(), ofMillis(100), () -> -1)
+                        .concatWith(reactiveGuard.withReadLock(Mono.<Integer>never(), ofMillis(50), () -> -2))
+                        .concatWith(reactiveGuard.withLock(Mono.just(1), ofSeconds(5), () -> -3)))
+                .expectNext(-1, -2, 1)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithConcurrentCachingLockMetrics() {
+
+        final var lockMetrics = lockMetrics();
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(this::getBillingInfo, concurrent(concurrencyConfig().withLockMetrics(lockMetrics))), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(this::getAllOrders, cache(), concurrent(concurrencyConfig().withStripes(4).withLockMetrics(lockMetrics))))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .delayElements(ofMillis(100))
+                        .flatMapSequential(assembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertTrue(lockMetrics.waitTime(READ).count() > 0);
+        assertEquals(lockMetrics.waitTime(READ).count(), lockMetrics.holdTime(READ).count());
+        assertTrue(lockMetrics.waitTime(WRITE).count() > 0);
+        assertEquals(lockMetrics.waitTime(WRITE).count(), lockMetrics.holdTime(WRITE).count());
+        assertEquals(0, lockMetrics.timeouts());
+    }
+
     @Test
     public void testReusableAssemblerBuilderWithFaultyCache() {
 
@@ -754,6 +1271,327 @@ public class CacheTest {
         assertEquals(0, ordersInvocationCount.get());
     }
 
+    @Test
+    public void testReusableAssemblerBuilderWithSortedAutoCachingEvents() {
+
+        OrderItem updatedOrderItem11 = new OrderItem("1", 1L, "Sweater", 1.00);
+        OrderItem updatedOrderItem13 = new OrderItem("3", 1L, "Socks", 49.99);
+        OrderItem orderItem14 = new OrderItem("10", 1L, "Scarf", 9.99);
+        OrderItem updatedOrderItem22 = new OrderItem("5", 2L, "Boots", 59.99);
+
+        var orderItemFlux = Flux.just(
+                        cdcAdd(orderItem11), cdcAdd(orderItem12), cdcAdd(orderItem13),
+                        cdcAdd(orderItem21), cdcAdd(orderItem22),
+                        cdcAdd(orderItem31), cdcAdd(orderItem32), cdcAdd(orderItem33),
+                        cdcAdd(updatedOrderItem11), cdcAdd(updatedOrderItem13), cdcAdd(orderItem14), cdcDelete(orderItem12),
+                        cdcAdd(updatedOrderItem22), cdcDelete(orderItem31), cdcDelete(orderItem32), cdcDelete(orderItem33))
+                .subscribeOn(parallel());
+
+        // Sorted by price, updated children move to the position of their new price and equal prices keep their insertion order
+        Transaction transaction1 = new Transaction(customer1, billingInfo1, List.of(updatedOrderItem11, orderItem14, updatedOrderItem13));
+        Transaction transaction2 = new Transaction(customer2, billingInfo2Unknown, List.of(updatedOrderItem22, orderItem21));
+        Transaction transaction3 = new Transaction(customer3, billingInfo3, List.of());
+
+        CacheTransformer<Long, OrderItem, List<OrderItem>, OneToManyCacheContext<Long, String, OrderItem, List<OrderItem>>> orderItemStreamTable =
+                streamTableBuilder(orderItemFlux, CDCAdd.class::isInstance, CDC::item)
+                        .maxWindowSize(4)
+                        .build();
+
+        Comparator<OrderItem> byPrice = comparing(OrderItem::price);
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(this::getBillingInfo), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(cache(), byPrice, orderItemStreamTable))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .delayElements(ofMillis(100))
+                        .flatMapSequential(assembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(0, ordersInvocationCount.get());
+    }
+
+    @Test
+    public void testObservableCacheWithOneToManyRemoveAll() {
+
+        var putAllEvents = new CopyOnWriteArrayList<Map<Long, List<OrderItem>>>();
+        var removeAllEvents = new CopyOnWriteArrayList<Map<Long, List<OrderItem>>>();
+
+        // Two windows, the second one removes every order item of customer 1
+        var orderItemFlux = Flux.just(
+                cdcAdd(orderItem11), cdcAdd(orderItem12), cdcAdd(orderItem13),
+                cdcDelete(orderItem11), cdcDelete(orderItem12), cdcDelete(orderItem13));
+
+        CacheFactory<Long, OrderItem, List<OrderItem>, OneToManyCacheContext<Long, String, OrderItem, List<OrderItem>>> observedCache =
+                ObservableCacheFactory.<Long, OrderItem, List<OrderItem>, OneToManyCacheContext<Long, String, OrderItem, List<OrderItem>>>observableCache(
+                        null, null, putAllEvents::add, removeAllEvents::add, null).apply(cache());
+
+        CacheTransformer<Long, OrderItem, List<OrderItem>, OneToManyCacheContext<Long, String, OrderItem, List<OrderItem>>> orderItemStreamTable =
+                streamTableBuilder(orderItemFlux, CDCAdd.class::isInstance, CDC::item)
+                        .maxWindowSize(3)
+                        .build();
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(this::getBillingInfo), BillingInfo::new)),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(observedCache, orderItemStreamTable))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(assembler.assemble(Flux.just(customer3)))
+                .expectNext(transaction3)
+                .expectComplete()
+                .verify();
+
+        StepVerifier.create(Mono.fromCallable(() -> removeAllEvents.isEmpty() ? null : removeAllEvents)
+                        .repeatWhenEmpty(repeat -> repeat.delayElements(ofMillis(50))))
+                .assertNext(events -> assertEquals(List.of(Map.of(1L, List.of(orderItem11, orderItem12, orderItem13))), events))
+                .expectComplete()
+                .verify(ofSeconds(5));
+
+        assertEquals(List.of(Map.of(1L, List.of(orderItem11, orderItem12, orderItem13))), putAllEvents);
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithAutoCachingCoalescedEvents() {
+
+        BillingInfo updatedBillingInfo2 = new BillingInfo(2, 2L, "4540222222222222");
+        OrderItem updatedOrderItem22 = new OrderItem("5", 2L, "Boots", 109.99);
+
+        var billingInfoFlux = Flux.just(
+                        cdcAdd(billingInfo1), cdcAdd(billingInfo2), cdcAdd(billingInfo3), cdcAdd(billingInfo2), cdcAdd(updatedBillingInfo2),
+                        cdcDelete(billingInfo3), cdcAdd(billingInfo3))
+                .subscribeOn(parallel());
+
+        var orderItemFlux = Flux.just(
+                        cdcAdd(orderItem11), cdcAdd(orderItem12), cdcAdd(orderItem13),
+                        cdcAdd(orderItem21), cdcAdd(orderItem22), cdcAdd(updatedOrderItem22),
+                        cdcAdd(orderItem31), cdcAdd(orderItem32), cdcAdd(orderItem33),
+                        cdcDelete(orderItem31), cdcDelete(orderItem32), cdcAdd(orderItem31))
+                .subscribeOn(parallel());
+
+        Transaction transaction2 = new Transaction(customer2, updatedBillingInfo2, List.of(orderItem21, updatedOrderItem22));
+        Transaction transaction3 = new Transaction(customer3, billingInfo3, List.of(orderItem31, orderItem33));
+
+        CacheTransformer<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>> billingInfoStreamTable =
+                streamTableBuilder(billingInfoFlux, CDCAdd.class::isInstance, CDC::item)
+                        .maxWindowSize(20)
+                        .build();
+
+        CacheTransformer<Long, OrderItem, List<OrderItem>, OneToManyCacheContext<Long, String, OrderItem, List<OrderItem>>> orderItemStreamTable =
+                streamTableBuilder(orderItemFlux, CDCAdd.class::isInstance, CDC::item)
+                        .maxWindowSize(20)
+                        .build();
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(billingInfoStreamTable))),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(cache(), orderItemStreamTable))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .delayElements(ofMillis(100))
+                        .flatMapSequential(assembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(0, billingInvocationCount.get());
+        assertEquals(0, ordersInvocationCount.get());
+    }
+
+    @Test
+    public void testAdaptiveWindowingStrategy() {
+
+        final WindowingStrategy<Integer> windowingStrategy = adaptiveWindowingStrategy(1, 100, ofMillis(50));
+
+        StepVerifier.create(windowingStrategy.apply(Flux.range(0, 1000)).flatMap(Flux::collectList, 1))
+                .recordWith(ArrayList::new)
+                .thenConsumeWhile(__ -> true)
+                .consumeRecordedWith(windows -> {
+                    assertEquals(1000, windows.stream().mapToInt(List::size).sum());
+                    assertTrue(windows.size() < 1000);
+                    assertTrue(windows.stream().allMatch(window -> window.size() <= 100));
+                })
+                .verifyComplete();
+
+        StepVerifier.create(windowingStrategy.apply(Flux.range(0, 3).delayElements(ofMillis(200))).flatMap(Flux::collectList))
+                .expectNext(List.of(0), List.of(1), List.of(2))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithPartitionedAutoCachingEvents() {
+
+        BillingInfo updatedBillingInfo2 = new BillingInfo(2, 2L, "4540222222222222");
+        OrderItem updatedOrderItem11 = new OrderItem("1", 1L, "Sweater", 1.00);
+        OrderItem updatedOrderItem22 = new OrderItem("5", 2L, "Boots", 109.99);
+
+        Flux<BillingInfo> billingInfoEventFlux = Flux.just(billingInfo1, billingInfo2, updatedBillingInfo2, billingInfo3)
+                .subscribeOn(parallel());
+
+        var orderItemFlux = Flux.just(
+                        cdcAdd(orderItem11), cdcAdd(orderItem12), cdcAdd(orderItem13),
+                        cdcAdd(orderItem21), cdcAdd(orderItem22), cdcAdd(updatedOrderItem22),
+                        cdcAdd(orderItem31), cdcAdd(orderItem32), cdcAdd(orderItem33),
+                        cdcDelete(orderItem31), cdcDelete(orderItem32), cdcAdd(updatedOrderItem11))
+                .subscribeOn(parallel());
+
+        Transaction transaction1 = new Transaction(customer1, billingInfo1, List.of(updatedOrderItem11, orderItem12, orderItem13));
+        Transaction transaction2 = new Transaction(customer2, updatedBillingInfo2, List.of(orderItem21, updatedOrderItem22));
+        Transaction transaction3 = new Transaction(customer3, billingInfo3, List.of(orderItem33));
+
+        CacheTransformer<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>> billingInfoStreamTable =
+                streamTableBuilder(billingInfoEventFlux)
+                        .maxWindowSize(2)
+                        .partitions(4)
+                        .build();
+
+        CacheTransformer<Long, OrderItem, List<OrderItem>, OneToManyCacheContext<Long, String, OrderItem, List<OrderItem>>> orderItemStreamTable =
+                streamTableBuilder(orderItemFlux, CDCAdd.class::isInstance, CDC::item)
+                        .maxWindowSize(2)
+                        .partitions(4, OrderItem::customerId)
+                        .build();
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(billingInfoStreamTable))),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(cache(), orderItemStreamTable))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .delayElements(ofMillis(100))
+                        .flatMapSequential(assembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(0, billingInvocationCount.get());
+        assertEquals(0, ordersInvocationCount.get());
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithBufferedAutoCachingEvents() {
+
+        BillingInfo updatedBillingInfo2 = new BillingInfo(2, 2L, "4540222222222222");
+        OrderItem updatedOrderItem11 = new OrderItem("1", 1L, "Sweater", 1.00);
+
+        Flux<BillingInfo> billingInfoEventFlux = Flux.just(billingInfo1, billingInfo2, updatedBillingInfo2, billingInfo3)
+                .subscribeOn(parallel());
+
+        var orderItemFlux = Flux.just(
+                        cdcAdd(orderItem11), cdcAdd(orderItem12), cdcAdd(orderItem13),
+                        cdcAdd(orderItem21), cdcAdd(orderItem22),
+                        cdcAdd(orderItem31), cdcAdd(orderItem32), cdcAdd(orderItem33),
+                        cdcDelete(orderItem31), cdcDelete(orderItem32), cdcAdd(updatedOrderItem11))
+                .subscribeOn(parallel());
+
+        Transaction transaction1 = new Transaction(customer1, billingInfo1, List.of(updatedOrderItem11, orderItem12, orderItem13));
+        Transaction transaction2 = new Transaction(customer2, updatedBillingInfo2, List.of(orderItem21, orderItem22));
+        Transaction transaction3 = new Transaction(customer3, billingInfo3, List.of(orderItem33));
+
+        var billingInfoMetrics = streamTableMetrics();
+        var orderItemMetrics = streamTableMetrics();
+
+        CacheTransformer<Long, BillingInfo, BillingInfo, OneToOneCacheContext<Long, BillingInfo>> billingInfoStreamTable =
+                streamTableBuilder(billingInfoEventFlux)
+                        .maxWindowSize(2)
+                        .buffer(2, INVALIDATE, billingInfoMetrics)
+                        .build();
+
+        CacheTransformer<Long, OrderItem, List<OrderItem>, OneToManyCacheContext<Long, String, OrderItem, List<OrderItem>>> orderItemStreamTable =
+                streamTableBuilder(orderItemFlux, CDCAdd.class::isInstance, CDC::item)
+                        .maxWindowSize(3)
+                        .buffer(2, BLOCK, orderItemMetrics)
+                        .build();
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(billingInfoStreamTable))),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(cache(), orderItemStreamTable))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(getCustomers()
+                        .window(3)
+                        .delayElements(ofMillis(100))
+                        .flatMapSequential(assembler::assemble))
+                .expectSubscription()
+                .expectNext(transaction1, transaction2, transaction3, transaction1, transaction2, transaction3, transaction1, transaction2, transaction3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(4, billingInfoMetrics.receivedEvents());
+        assertEquals(11, orderItemMetrics.receivedEvents());
+
+        for (var metrics : List.of(billingInfoMetrics, orderItemMetrics)) {
+            assertEquals(0, metrics.pendingEvents());
+            assertEquals(0, metrics.droppedEvents());
+            assertEquals(ZERO, metrics.oldestPendingAge());
+        }
+
+        assertEquals(0, billingInvocationCount.get());
+        assertEquals(0, ordersInvocationCount.get());
+    }
+
+    @Test
+    public void testReusableAssemblerBuilderWithInvalidatedOneToManyAutoCachingEvents() {
+
+        OrderItem updatedOrderItem11 = new OrderItem("1", 1L, "Sweater", 1.00);
+
+        // The first event is held for 100ms by the windowing strategy, the second one is then dropped from the buffer when the third one arrives
+        var orderItemFlux = Flux.just(cdcAdd(orderItem21), cdcAdd(updatedOrderItem11), cdcAdd(orderItem22))
+                .delaySubscription(ofMillis(200));
+
+        var orderItemMetrics = streamTableMetrics();
+
+        CacheTransformer<Long, OrderItem, List<OrderItem>, OneToManyCacheContext<Long, String, OrderItem, List<OrderItem>>> orderItemStreamTable =
+                streamTableBuilder(orderItemFlux, CDCAdd.class::isInstance, CDC::item)
+                        .windowingStrategy(delayedWindowingStrategy(ofMillis(100)))
+                        .buffer(1, INVALIDATE, orderItemMetrics)
+                        .build();
+
+        Transaction transaction1 = new Transaction(customer1, billingInfo1, List.of(orderItem11, orderItem12, orderItem13));
+
+        var assembler = assemblerOf(Transaction.class)
+                .withCorrelationIdResolver(Customer::customerId)
+                .withRules(
+                        rule(BillingInfo::customerId, oneToOne(cached(this::getBillingInfo))),
+                        rule(OrderItem::customerId, oneToMany(OrderItem::id, cachedMany(this::getAllOrders, orderItemStreamTable))),
+                        Transaction::new)
+                .build();
+
+        StepVerifier.create(assembler.assemble(Flux.just(customer1))
+                        .concatWith(Mono.delay(ofMillis(800)).thenMany(Flux.defer(() -> assembler.assemble(Flux.just(customer1))))))
+                .expectNext(transaction1, transaction1)
+                .expectComplete()
+                .verify();
+
+        assertEquals(3, orderItemMetrics.receivedEvents());
+        assertEquals(1, orderItemMetrics.invalidatedEvents());
+
+        // The whole collection of customer 1 was invalidated, not only the dropped order item, so it is fetched again
+        assertEquals(2, ordersInvocationCount.get());
+    }
+
     @Test
     public void testReusableAssemblerBuilderWithAutoCachingMultipleEventSources() {
 
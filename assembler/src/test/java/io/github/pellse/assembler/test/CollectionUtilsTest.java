@@ -0,0 +1,359 @@
+/*
+ * Copyright 2024 Sebastien Pelletier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pellse.assembler.test;
+
+import io.github.pellse.util.collection.IntKeyHashMap;
+import io.github.pellse.util.collection.LongKeyHashMap;
+import io.github.pellse.util.collection.SortedArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static io.github.pellse.util.collection.CollectionUtils.mergeMaps;
+import static io.github.pellse.util.collection.CollectionUtils.removeDuplicates;
+import static io.github.pellse.util.collection.CollectionUtils.subtractFromMap;
+import static java.util.Comparator.comparing;
+import static java.util.Map.entry;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CollectionUtilsTest {
+
+    record Item(String id, int rank) {
+    }
+
+    private static final Comparator<Item> BY_RANK = comparing(Item::rank);
+
+    @Test
+    public void testMergeMapsInsertsEqualSortKeysInInsertionOrder() {
+
+        var a1 = new Item("a", 1);
+        var b2 = new Item("b", 2);
+        var c2 = new Item("c", 2);
+        var d0 = new Item("d", 0);
+        var e2 = new Item("e", 2);
+
+        var existingColl = new SortedArrayList<>(BY_RANK, List.of(b2));
+
+        var mergedMap = mergeMaps(Map.of(1L, existingColl), Map.of(1L, List.of(a1, c2, d0, e2)), Item::id, CollectionUtilsTest::toList);
+
+        assertEquals(List.of(d0, a1, b2, c2, e2), mergedMap.get(1L));
+    }
+
+    @Test
+    public void testMergeMapsBelowAndAboveBinaryInsertionThreshold() {
+
+        var existingColl = new SortedArrayList<>(BY_RANK, List.of(new Item("x", 5), new Item("y", 1)));
+
+        var smallList = assertInstanceOf(SortedArrayList.class, mergeMaps(Map.of(1L, existingColl), Map.of(1L, items(8, "s")), Item::id, CollectionUtilsTest::toList).get(1L));
+        var largeList = assertInstanceOf(SortedArrayList.class, mergeMaps(Map.of(1L, existingColl), Map.of(1L, items(9, "l")), Item::id, CollectionUtilsTest::toList).get(1L));
+
+        assertEquals(10, smallList.size());
+        assertEquals(11, largeList.size());
+        assertTrue(smallList.isSorted());
+        assertTrue(largeList.isSorted());
+        assertSorted(smallList);
+        assertSorted(largeList);
+
+        // Equal elements already in the list stay ahead of the ones added after them on both paths
+        assertEquals(List.of(new Item("y", 1), new Item("s3", 1), new Item("s7", 1)), smallList.stream().filter(item -> ((Item) item).rank() == 1).toList());
+        assertEquals(List.of(new Item("y", 1), new Item("l0", 1), new Item("l4", 1), new Item("l8", 1)), largeList.stream().filter(item -> ((Item) item).rank() == 1).toList());
+    }
+
+    @Test
+    public void testSortedArrayListBehavesAsArrayList() {
+
+        var a1 = new Item("a", 1);
+        var b2 = new Item("b", 2);
+        var c3 = new Item("c", 3);
+        var d0 = new Item("d", 0);
+
+        var appendedList = new SortedArrayList<>(BY_RANK, List.of(c3, a1));
+        assertTrue(appendedList.isSorted());
+
+        appendedList.add(b2);
+        assertEquals(List.of(a1, c3, b2), appendedList);
+        assertFalse(appendedList.isSorted());
+
+        var positionalList = new SortedArrayList<>(BY_RANK, List.of(a1, b2));
+        positionalList.add(0, c3);
+        positionalList.set(1, a1);
+        positionalList.replaceAll(item -> item);
+        positionalList.sort(BY_RANK.reversed());
+        assertEquals(List.of(c3, b2, a1), positionalList);
+        assertFalse(positionalList.isSorted());
+
+        var listIteratorList = new SortedArrayList<>(BY_RANK, List.of(a1, b2));
+        var listIterator = listIteratorList.listIterator();
+        listIterator.next();
+        listIterator.set(c3);
+        assertEquals(List.of(c3, b2), listIteratorList);
+        assertFalse(listIteratorList.isSorted());
+
+        var subListList = new SortedArrayList<>(BY_RANK, List.of(a1, b2));
+        subListList.subList(0, 1).set(0, c3);
+        assertEquals(List.of(c3, b2), subListList);
+        assertFalse(subListList.isSorted());
+
+        // A list modified by user code is merged as any other list, sortBy() then sorts a copy again
+        var mergedColl = mergeMaps(Map.of(1L, appendedList), Map.of(1L, List.of(d0)), Item::id, CollectionUtilsTest::toList).get(1L);
+        assertEquals(List.of(a1, c3, b2, d0), mergedColl);
+        assertFalse(mergedColl instanceof SortedArrayList<?>);
+    }
+
+    @Test
+    public void testMergeMapsRepositionsSortedChildWhoseSortKeyChanged() {
+
+        var a1 = new Item("a", 1);
+        var b2 = new Item("b", 2);
+        var c3 = new Item("c", 3);
+        var updatedA4 = new Item("a", 4);
+        var updatedC0 = new Item("c", 0);
+        var d2 = new Item("d", 2);
+
+        var existingColl = new SortedArrayList<>(BY_RANK, List.of(a1, b2, c3));
+        Map<Long, List<Item>> existingMap = Map.of(1L, existingColl);
+
+        var mergedMap = mergeMaps(existingMap, Map.of(1L, List.of(updatedA4, updatedC0, d2)), Item::id, CollectionUtilsTest::toList);
+
+        var mergedColl = assertInstanceOf(SortedArrayList.class, mergedMap.get(1L));
+        assertEquals(List.of(updatedC0, b2, d2, updatedA4), mergedColl);
+        assertSame(BY_RANK, mergedColl.comparator());
+
+        // Cached collections are shared with readers, the existing one must be left untouched
+        assertEquals(List.of(a1, b2, c3), existingColl);
+    }
+
+    @Test
+    public void testMergeMapsReplacesSortedChildWithEqualSortKey() {
+
+        var a1 = new Item("a", 1);
+        var b1 = new Item("b", 1);
+        var c1 = new Item("c", 1);
+
+        var existingColl = new SortedArrayList<>(BY_RANK, List.of(a1, b1, c1));
+
+        var mergedMap = mergeMaps(Map.of(1L, existingColl), Map.of(1L, List.of(new Item("a", 1), new Item("a", 1))), Item::id, CollectionUtilsTest::toList);
+
+        // The replaced child is inserted after the remaining equal ones, and only once
+        assertEquals(List.of(b1, c1, a1), mergedMap.get(1L));
+    }
+
+    @Test
+    public void testSubtractFromMapKeepsSortedOrder() {
+
+        var a1 = new Item("a", 1);
+        var b2 = new Item("b", 2);
+        var c3 = new Item("c", 3);
+
+        var existingColl = new SortedArrayList<>(BY_RANK, List.of(a1, b2, c3));
+
+        var result = subtractFromMap(Map.of(1L, List.of(new Item("b", 99))), Map.<Long, List<Item>>of(1L, existingColl), Item::id, ArrayList::new);
+
+        var resultColl = assertInstanceOf(SortedArrayList.class, result.get(1L));
+        assertEquals(List.of(a1, c3), resultColl);
+        assertEquals(List.of(a1, b2, c3), existingColl);
+
+        // Nothing to remove, the existing collection stays shared
+        var unchanged = subtractFromMap(Map.of(1L, List.of(new Item("z", 0))), Map.<Long, List<Item>>of(1L, existingColl), Item::id, ArrayList::new);
+        assertSame(existingColl, unchanged.get(1L));
+    }
+
+    @Test
+    public void testSubtractFromMapDownToEmptyRemovesKey() {
+
+        var existingColl = new SortedArrayList<>(BY_RANK, List.of(new Item("a", 1), new Item("b", 2)));
+
+        var result = subtractFromMap(
+                Map.of(1L, List.of(new Item("a", 1), new Item("b", 2))),
+                Map.<Long, List<Item>>of(1L, existingColl, 2L, List.of(new Item("c", 3))),
+                Item::id,
+                ArrayList::new);
+
+        assertFalse(result.containsKey(1L));
+        assertEquals(Map.of(2L, List.of(new Item("c", 3))), result);
+    }
+
+    @Test
+    public void testMergeMapsReplacesInPlaceAndAppendsLastDuplicate() {
+
+        var a1 = new Item("a", 1);
+        var b1 = new Item("b", 1);
+        var c1 = new Item("c", 1);
+        var a2 = new Item("a", 2);
+        var c2 = new Item("c", 2);
+
+        Map<Long, List<Item>> existingMap = Map.of(1L, List.of(a1, b1));
+        Map<Long, List<Item>> newMap = Map.of(1L, List.of(c1, a2, c2));
+
+        // An updated child keeps its position, a new child duplicated in the incoming collection is appended once with its last value
+        assertEquals(Map.of(1L, List.of(a2, b1, c2)), mergeMaps(existingMap, newMap, Item::id));
+        assertEquals(previousMergeMaps(existingMap, newMap), mergeMaps(existingMap, newMap, Item::id));
+    }
+
+    @Test
+    public void testMergeMapsMatchesRemoveDuplicatesOfConcat() {
+
+        var random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            // Cached collections are always the result of a previous merge and so never hold duplicate ids
+            var existingMap = randomMap(random, 0, 3, false);
+            var newMap = randomMap(random, 2, 5, true);
+
+            var expected = previousMergeMaps(existingMap, newMap);
+            var merged = mergeMaps(existingMap, newMap, Item::id);
+
+            assertEquals(List.copyOf(expected.entrySet()), List.copyOf(merged.entrySet()), () -> existingMap + " + " + newMap);
+        }
+    }
+
+    @Test
+    public void testSubtractFromMapMatchesPreviousFilter() {
+
+        var random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            var srcMap = randomMap(random, 0, 3, false);
+            var mapToSubtract = randomMap(random, 1, 4, true);
+
+            var expected = previousSubtractFromMap(mapToSubtract, srcMap);
+            var result = subtractFromMap(mapToSubtract, srcMap, Item::id);
+
+            assertEquals(List.copyOf(expected.entrySet()), List.copyOf(result.entrySet()), () -> srcMap + " - " + mapToSubtract);
+        }
+    }
+
+    // Ranks cycle from 0 to 3 so the added items hold duplicate sort keys, both among themselves and with existing ones
+    private static List<Item> items(int count, String prefix) {
+        final var items = new ArrayList<Item>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Item(prefix + i, (count - i) % 4));
+        }
+        return items;
+    }
+
+    @Test
+    public void testPrimitiveKeyHashMapIteratorsFailFast() {
+
+        var longKeyMap = new LongKeyHashMap<String>(Map.of(1L, "a", 2L, "b"));
+
+        var iterator = longKeyMap.entrySet().iterator();
+        iterator.next();
+        longKeyMap.put(1L, "z"); // Replacing a value is not a structural change
+        iterator.next();
+        longKeyMap.put(3L, "c");
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        var intKeyMap = new IntKeyHashMap<String>(Map.of(1, "a", 2, "b", 3, "c"));
+
+        for (var keyIterator = intKeyMap.keySet().iterator(); keyIterator.hasNext(); ) {
+            if (keyIterator.next() == 2) {
+                keyIterator.remove();
+            }
+        }
+        assertEquals(Map.of(1, "a", 3, "c"), intKeyMap);
+        assertThrows(ConcurrentModificationException.class, () -> intKeyMap.keySet().forEach(intKeyMap::remove));
+    }
+
+    @Test
+    public void testPrimitiveKeyHashMapEntriesAfterRehash() {
+
+        var map = new LongKeyHashMap<String>();
+        map.put(1L, "a");
+        map.put(2L, "b");
+
+        var entry = map.entrySet().iterator().next();
+        var key = entry.getKey();
+
+        // Grows the map several times, every key then moves to a different slot
+        LongStream.range(100, 200).forEach(k -> map.put(k, "v" + k));
+
+        assertEquals(map.get(key), entry.getValue());
+        assertEquals(map.get(key), entry.setValue("z"));
+        assertEquals("z", map.get(key));
+        assertEquals(102, map.size());
+        LongStream.range(100, 200).forEach(k -> assertEquals("v" + k, map.get(k)));
+
+        // Detached once its key is removed, it doesn't add the key back
+        map.remove(key);
+        assertEquals("z", entry.setValue("y"));
+        assertEquals("y", entry.getValue());
+        assertFalse(map.containsKey(key));
+        assertEquals(101, map.size());
+    }
+
+    // Implementation of mergeMaps before single pass merging, kept as a reference for ordering and de-duplication
+    private static Map<Long, List<Item>> previousMergeMaps(Map<Long, List<Item>> existingMap, Map<Long, List<Item>> newMap) {
+        return Stream.concat(existingMap.entrySet().stream(), newMap.entrySet().stream())
+                .map(entry -> entry(entry.getKey(), removeDuplicates(entry.getValue(), Item::id, ArrayList::new)))
+                .collect(toMap(
+                        Entry::getKey,
+                        Entry::getValue,
+                        (coll1, coll2) -> removeDuplicates(Stream.concat(coll1.stream(), coll2.stream()).toList(), Item::id, ArrayList::new),
+                        LinkedHashMap::new));
+    }
+
+    // Implementation of subtractFromMap before single pass subtraction
+    private static Map<Long, List<Item>> previousSubtractFromMap(Map<Long, List<Item>> mapToSubtract, Map<Long, List<Item>> srcMap) {
+        final var result = new LinkedHashMap<Long, List<Item>>();
+        srcMap.forEach((key, coll) -> {
+            final var itemsToSubtract = mapToSubtract.get(key);
+            if (itemsToSubtract == null) {
+                result.put(key, coll);
+                return;
+            }
+            final var idsToSubtract = itemsToSubtract.stream().map(Item::id).collect(toSet());
+            final var newColl = coll.stream().filter(item -> !idsToSubtract.contains(item.id())).toList();
+            if (!newColl.isEmpty()) {
+                result.put(key, newColl);
+            }
+        });
+        return result;
+    }
+
+    private static Map<Long, List<Item>> randomMap(Random random, long fromKey, long toKey, boolean allowDuplicateIds) {
+        final var map = new LinkedHashMap<Long, List<Item>>();
+        for (long key = fromKey; key < toKey; key++) {
+            if (random.nextInt(4) == 0) {
+                continue;
+            }
+            final var items = new ArrayList<Item>();
+            final int size = random.nextInt(6);
+            for (int i = 0; i < size; i++) {
+                items.add(new Item(String.valueOf((char) ('a' + random.nextInt(6))), random.nextInt(100)));
+            }
+            map.put(key, allowDuplicateIds ? items : removeDuplicates(items, Item::id, ArrayList::new));
+        }
+        return map;
+    }
+
+    private static void assertSorted(List<Item> list) {
+        for (int i = 1; i < list.size(); i++) {
+            assertTrue(BY_RANK.compare(list.get(i - 1), list.get(i)) <= 0, () -> "Not sorted: " + list);
+        }
+    }
+
+    private static List<Item> toList(Collection<Item> coll) {
+        return coll instanceof List<Item> list ? list : new ArrayList<>(coll);
+    }
+}